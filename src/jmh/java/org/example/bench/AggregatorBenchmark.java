@@ -0,0 +1,64 @@
+package org.example.bench;
+
+import com.merakianalytics.orianna.types.common.Platform;
+import org.example.collector.MatchAggregator;
+import org.example.collector.MatchStore;
+import org.example.util.RiotApiClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AggregatorBenchmark {
+    private static final int MATCHES_PER_BATCH = 100;
+
+    private BenchDatabase database;
+    private MatchAggregator aggregator;
+    private List<String> batch;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        database = BenchDatabase.create("aggregator");
+        MatchStore store = new MatchStore(database.dir().resolve("matches"));
+        List<byte[]> payloads = MatchFixtures.load();
+        batch = new ArrayList<>(MATCHES_PER_BATCH);
+        for (int i = 0; i < MATCHES_PER_BATCH; i++) {
+            String matchId = "EUW1_" + (8_000_000_000L + i);
+            store.write(matchId, payloads.get(i % payloads.size()));
+            batch.add(matchId);
+        }
+        aggregator = new MatchAggregator(Platform.EUROPE_WEST, (RiotApiClient) null, database.connection(), 1, null, store);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES_PER_BATCH)
+    public void cachedMatch() throws InterruptedException, SQLException {
+        aggregator.aggregate(batch);
+        database.connection().commit();
+    }
+}
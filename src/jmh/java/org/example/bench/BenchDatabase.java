@@ -0,0 +1,48 @@
+package org.example.bench;
+
+import org.example.collector.DatabaseManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+final class BenchDatabase implements AutoCloseable {
+    private final Path dir;
+    private final Connection connection;
+
+    private BenchDatabase(Path dir, Connection connection) {
+        this.dir = dir;
+        this.connection = connection;
+    }
+
+    static BenchDatabase create(String name) throws IOException, SQLException {
+        Path dir = Files.createTempDirectory("mejais-bench-" + name);
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("snapshot.db"));
+        DatabaseManager.initializeDatabase(connection);
+        connection.setAutoCommit(false);
+        return new BenchDatabase(dir, connection);
+    }
+
+    Path dir() {
+        return dir;
+    }
+
+    Connection connection() {
+        return connection;
+    }
+
+    @Override
+    public void close() throws IOException, SQLException {
+        connection.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
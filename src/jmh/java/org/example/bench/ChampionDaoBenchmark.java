@@ -0,0 +1,72 @@
+package org.example.bench;
+
+import org.example.collector.MatchParticipant;
+import org.example.collector.ParticipantExtractor;
+import org.example.collector.dao.ChampionDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChampionDaoBenchmark {
+    private BenchDatabase database;
+    private ChampionDao championDao;
+    private List<String> names;
+    private int next;
+    private long created;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        database = BenchDatabase.create("champions");
+        championDao = new ChampionDao(database.connection());
+        ParticipantExtractor extractor = new ParticipantExtractor();
+        names = new ArrayList<>();
+        for (byte[] payload : MatchFixtures.load()) {
+            for (MatchParticipant participant : extractor.extract(payload).participants()) {
+                names.add(participant.championName());
+                championDao.getOrCreateChampion(participant.championName());
+            }
+        }
+        database.connection().commit();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        database.close();
+    }
+
+    @Benchmark
+    public int cachedLookup() throws SQLException {
+        String name = names.get(next);
+        next = (next + 1) % names.size();
+        return championDao.getOrCreateChampion(name);
+    }
+
+    @Benchmark
+    public int insertNew() throws SQLException {
+        int id = championDao.getOrCreateChampion("BenchChampion" + created++);
+        if (created % 1_000 == 0) {
+            database.connection().commit();
+        }
+        return id;
+    }
+}
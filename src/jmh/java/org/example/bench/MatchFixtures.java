@@ -0,0 +1,40 @@
+package org.example.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+final class MatchFixtures {
+    private static final List<String> MATCH_IDS = List.of(
+            "EUW1_7000000000",
+            "EUW1_7000000001",
+            "EUW1_7000000002",
+            "EUW1_7000000003",
+            "EUW1_7000000004"
+    );
+
+    private MatchFixtures() {
+    }
+
+    static List<String> matchIds() {
+        return MATCH_IDS;
+    }
+
+    static List<byte[]> load() throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        for (String matchId : MATCH_IDS) {
+            payloads.add(read(matchId));
+        }
+        return payloads;
+    }
+
+    static byte[] read(String matchId) throws IOException {
+        try (InputStream in = MatchFixtures.class.getResourceAsStream("/matches/" + matchId + ".json")) {
+            if (in == null) {
+                throw new IOException("Missing match fixture " + matchId);
+            }
+            return in.readAllBytes();
+        }
+    }
+}
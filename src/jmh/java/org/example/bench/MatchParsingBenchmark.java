@@ -0,0 +1,63 @@
+package org.example.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.collector.MatchSummary;
+import org.example.collector.ParticipantExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchParsingBenchmark {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ParticipantExtractor extractor = new ParticipantExtractor();
+    private List<byte[]> payloads;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        payloads = MatchFixtures.load();
+    }
+
+    private byte[] nextPayload() {
+        byte[] payload = payloads.get(next);
+        next = (next + 1) % payloads.size();
+        return payload;
+    }
+
+    @Benchmark
+    public void treeModel(Blackhole blackhole) throws IOException {
+        JsonNode match = mapper.readTree(new String(nextPayload(), StandardCharsets.UTF_8));
+        for (JsonNode participant : match.path("info").path("participants")) {
+            blackhole.consume(participant.path("championName").asText(""));
+            blackhole.consume(participant.path("win").asBoolean(false));
+            blackhole.consume(participant.path("teamId").asInt());
+            blackhole.consume(participant.path("puuid").asText(""));
+            blackhole.consume(participant.path("teamPosition").asText(""));
+        }
+    }
+
+    @Benchmark
+    public MatchSummary streaming() throws IOException {
+        return extractor.extract(nextPayload());
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.bench;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+final class MonitorRateLimiter {
+    private final int shortLimit;
+    private final long shortWindowNanos;
+    private final int longLimit;
+    private final long longWindowNanos;
+    private final Map<String, Window[]> appBuckets = new HashMap<>();
+    private final Map<String, Window[]> methodBuckets = new HashMap<>();
+
+    MonitorRateLimiter(int shortLimit, long shortWindowNanos, int longLimit, long longWindowNanos) {
+        this.shortLimit = shortLimit;
+        this.shortWindowNanos = shortWindowNanos;
+        this.longLimit = longLimit;
+        this.longWindowNanos = longWindowNanos;
+    }
+
+    void acquire(String region, String method) throws InterruptedException {
+        while (true) {
+            long waitNanos = tryAcquire(region, method);
+            if (waitNanos == 0) {
+                return;
+            }
+            Thread.sleep(Math.max(1L, (waitNanos + 999_999L) / 1_000_000L));
+        }
+    }
+
+    private synchronized long tryAcquire(String region, String method) {
+        long now = System.nanoTime();
+        Window[] app = appBuckets.computeIfAbsent(region, key -> new Window[]{
+                new Window(shortLimit, shortWindowNanos),
+                new Window(longLimit, longWindowNanos)
+        });
+        Window[] methodBucket = methodBuckets.computeIfAbsent(region + " " + method, key -> new Window[0]);
+        long waitNanos = Math.max(waitNanos(app, now), waitNanos(methodBucket, now));
+        if (waitNanos <= 0) {
+            for (Window window : app) window.timestamps.addLast(now);
+            for (Window window : methodBucket) window.timestamps.addLast(now);
+            return 0L;
+        }
+        return Math.max(1_000_000L, waitNanos);
+    }
+
+    private long waitNanos(Window[] windows, long now) {
+        long waitNanos = 0L;
+        for (Window window : windows) {
+            waitNanos = Math.max(waitNanos, window.waitNanos(now));
+        }
+        return waitNanos;
+    }
+
+    private static final class Window {
+        private final int limit;
+        private final long windowNanos;
+        private final Deque<Long> timestamps = new ArrayDeque<>();
+
+        Window(int limit, long windowNanos) {
+            this.limit = limit;
+            this.windowNanos = windowNanos;
+        }
+
+        long waitNanos(long now) {
+            long threshold = now - windowNanos;
+            while (!timestamps.isEmpty() && timestamps.peekFirst() <= threshold) {
+                timestamps.removeFirst();
+            }
+            if (limit <= 0 || timestamps.size() < limit || timestamps.isEmpty()) {
+                return 0L;
+            }
+            return windowNanos - (now - timestamps.peekFirst());
+        }
+    }
+}
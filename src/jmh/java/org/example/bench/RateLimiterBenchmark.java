@@ -0,0 +1,75 @@
+package org.example.bench;
+
+import org.example.util.RiotRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+    private static final String REGION = "europe.api.riotgames.com";
+    private static final String METHOD = "/lol/match/v5/matches/{}";
+    private static final int SHORT_LIMIT = 100_000;
+    private static final int LONG_LIMIT = 1_000_000;
+
+    private RiotRateLimiter ringLimiter;
+    private MonitorRateLimiter monitorLimiter;
+
+    @Setup
+    public void setUp() {
+        ringLimiter = new RiotRateLimiter(SHORT_LIMIT, Duration.ofMillis(1), LONG_LIMIT, Duration.ofMillis(10));
+        monitorLimiter = new MonitorRateLimiter(SHORT_LIMIT, TimeUnit.MILLISECONDS.toNanos(1), LONG_LIMIT, TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void ring_1(RateLimiterBenchmark state) throws InterruptedException {
+        state.ringLimiter.acquire(REGION, METHOD);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void ring_16(RateLimiterBenchmark state) throws InterruptedException {
+        state.ringLimiter.acquire(REGION, METHOD);
+    }
+
+    @Benchmark
+    @Threads(256)
+    public void ring_256(RateLimiterBenchmark state) throws InterruptedException {
+        state.ringLimiter.acquire(REGION, METHOD);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void monitor_1(RateLimiterBenchmark state) throws InterruptedException {
+        state.monitorLimiter.acquire(REGION, METHOD);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void monitor_16(RateLimiterBenchmark state) throws InterruptedException {
+        state.monitorLimiter.acquire(REGION, METHOD);
+    }
+
+    @Benchmark
+    @Threads(256)
+    public void monitor_256(RateLimiterBenchmark state) throws InterruptedException {
+        state.monitorLimiter.acquire(REGION, METHOD);
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.bench;
+
+import org.example.collector.StatsPartition;
+import org.example.collector.dao.ChampionDao;
+import org.example.collector.dao.StatsDao;
+import org.example.model.RankTier;
+import org.example.service.db.BinarySnapshot;
+import org.example.service.db.SnapshotRebuilder;
+import org.example.service.db.StatsView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotLoadBenchmark {
+    private static final int CHAMPIONS = 170;
+    private static final int PATCH_WINDOW = 2;
+    private static final String[] PATCHES = {"15.18", "15.19", "15.20"};
+    private static final String[] TIERS = {"CHALLENGER", "MASTER", "EMERALD"};
+    private static final String[] ROLES = {"TOP", "JUNGLE", "MIDDLE", "BOTTOM", "UTILITY"};
+
+    private BenchDatabase database;
+    private Path binaryPath;
+    private SnapshotRebuilder rebuilder;
+    private StatsView sqliteView;
+    private StatsView binaryView;
+    private List<String> champions;
+    private List<String> allies;
+    private List<String> enemies;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        database = BenchDatabase.create("snapshot");
+        ChampionDao championDao = new ChampionDao(database.connection());
+        int[] ids = new int[CHAMPIONS];
+        champions = new ArrayList<>();
+        for (int i = 0; i < CHAMPIONS; i++) {
+            champions.add("Champion" + i);
+            ids[i] = championDao.getOrCreateChampion(champions.get(i));
+        }
+        Random random = new Random(42);
+        StatsDao statsDao = new StatsDao(database.connection());
+        for (String patch : PATCHES) {
+            for (String tier : TIERS) {
+                StatsPartition partition = new StatsPartition(patch, tier, "EUW1");
+                for (int i = 0; i < CHAMPIONS; i++) {
+                    int plays = 200 + random.nextInt(2_000);
+                    statsDao.upsertChampionStats(partition, ids[i], plays / 2 + random.nextInt(plays / 10), plays);
+                    statsDao.upsertRoleStats(partition, ids[i], ROLES[i % ROLES.length], plays * 9 / 10);
+                    statsDao.upsertRoleStats(partition, ids[i], ROLES[(i + 1) % ROLES.length], plays / 10);
+                    for (int j = 0; j < CHAMPIONS; j++) {
+                        if (i == j) continue;
+                        int pairPlays = 1 + random.nextInt(40);
+                        if (i < j) {
+                            statsDao.upsertSynergyStats(partition, ids[i], ids[j], random.nextInt(pairPlays + 1), pairPlays);
+                        }
+                        statsDao.upsertCounterStats(partition, ids[i], ids[j], random.nextInt(pairPlays + 1), pairPlays);
+                    }
+                }
+            }
+        }
+        statsDao.flush();
+        database.connection().commit();
+
+        String url = "jdbc:sqlite:" + database.dir().resolve("snapshot.db");
+        rebuilder = new SnapshotRebuilder(() -> DriverManager.getConnection(url));
+        binaryPath = database.dir().resolve("snapshot.bin");
+        new SnapshotRebuilder().writeBinarySnapshot(database.connection(), binaryPath, PATCH_WINDOW);
+        sqliteView = sqliteLoad();
+        binaryView = binaryLoad();
+        allies = List.of(champions.get(3), champions.get(17), champions.get(42), champions.get(99));
+        enemies = List.of(champions.get(5), champions.get(23), champions.get(64), champions.get(120), champions.get(150));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        database.close();
+    }
+
+    @Benchmark
+    public StatsView sqliteLoad() throws SQLException {
+        return StatsView.of(new SnapshotRebuilder().rebuildSnapshot(database.connection(), RankTier.ALL, PATCH_WINDOW));
+    }
+
+    @Benchmark
+    public StatsView sqliteParallelLoad() throws SQLException {
+        return StatsView.of(rebuilder.rebuildSnapshot(RankTier.ALL, PATCH_WINDOW));
+    }
+
+    @Benchmark
+    public StatsView sqliteLazyLoad() throws SQLException {
+        return StatsView.of(rebuilder.rebuildLazySnapshot(RankTier.ALL, PATCH_WINDOW, null));
+    }
+
+    @Benchmark
+    public StatsView binaryLoad() throws IOException {
+        return BinarySnapshot.open(binaryPath).view(RankTier.ALL);
+    }
+
+    @Benchmark
+    public void sqliteRecommend(Blackhole blackhole) {
+        recommend(sqliteView, blackhole);
+    }
+
+    @Benchmark
+    public void binaryRecommend(Blackhole blackhole) {
+        recommend(binaryView, blackhole);
+    }
+
+    private void recommend(StatsView view, Blackhole blackhole) {
+        for (String champion : view.champions()) {
+            blackhole.consume(view.winRate(champion));
+            blackhole.consume(view.roles(champion));
+            for (String ally : allies) {
+                blackhole.consume(view.synergy(champion, ally));
+            }
+            for (String enemy : enemies) {
+                blackhole.consume(view.counter(champion, enemy));
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.bench;
+
+import org.example.collector.MatchParticipant;
+import org.example.collector.MatchSummary;
+import org.example.collector.ParticipantExtractor;
+import org.example.collector.StatsAccumulator;
+import org.example.collector.StatsPartition;
+import org.example.collector.dao.ChampionDao;
+import org.example.collector.dao.StatsDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StatsDaoBenchmark {
+    private static final int ROWS_PER_INVOCATION = 1_000;
+
+    private final StatsPartition partition = new StatsPartition("15.20", "CHALLENGER", "EUW1");
+    private BenchDatabase database;
+    private StatsDao statsDao;
+    private List<int[]> pairs;
+    private List<MatchSummary> matches;
+    private StatsAccumulator accumulator;
+    private ChampionDao championDao;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        database = BenchDatabase.create("stats");
+        statsDao = new StatsDao(database.connection());
+        championDao = new ChampionDao(database.connection());
+        ParticipantExtractor extractor = new ParticipantExtractor();
+        matches = new ArrayList<>();
+        pairs = new ArrayList<>();
+        for (byte[] payload : MatchFixtures.load()) {
+            MatchSummary match = extractor.extract(payload);
+            matches.add(match);
+            for (MatchParticipant participant : match.participants()) {
+                for (MatchParticipant other : match.participants()) {
+                    if (participant == other) continue;
+                    pairs.add(new int[]{
+                            championDao.getOrCreateChampion(participant.championName()),
+                            championDao.getOrCreateChampion(other.championName())});
+                }
+            }
+        }
+        database.connection().commit();
+    }
+
+    @Setup(Level.Invocation)
+    public void fillAccumulator() throws SQLException {
+        accumulator = new StatsAccumulator();
+        for (int round = 0; round < 20; round++) {
+            for (MatchSummary match : matches) {
+                List<MatchParticipant> participants = match.participants();
+                for (MatchParticipant participant : participants) {
+                    int championId = championDao.getOrCreateChampion(participant.championName()) + round;
+                    accumulator.addChampion(partition, championId, participant.win());
+                    accumulator.addRole(partition, championId, participant.role());
+                    for (MatchParticipant other : participants) {
+                        if (participant == other) continue;
+                        int otherId = championDao.getOrCreateChampion(other.championName()) + round;
+                        if (other.teamId() == participant.teamId()) {
+                            accumulator.addSynergy(partition, championId, otherId, participant.win());
+                        } else {
+                            accumulator.addCounter(partition, championId, otherId, participant.win());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public void counterUpserts() throws SQLException {
+        for (int i = 0; i < ROWS_PER_INVOCATION; i++) {
+            int[] pair = pairs.get(next);
+            next = (next + 1) % pairs.size();
+            statsDao.upsertCounterStats(partition, pair[0], pair[1], 1, 1);
+        }
+        statsDao.flush();
+        database.connection().commit();
+    }
+
+    @Benchmark
+    public void accumulatorFlush() throws SQLException {
+        accumulator.flush(statsDao);
+        statsDao.flush();
+        database.connection().commit();
+    }
+}
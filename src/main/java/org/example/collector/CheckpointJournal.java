@@ -0,0 +1,100 @@
+package org.example.collector;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CheckpointJournal {
+    private final Connection connection;
+    private final int interval;
+    private PreparedStatement markStatement;
+    private int sinceCheckpoint;
+
+    public CheckpointJournal(Connection connection, int interval) {
+        this.connection = connection;
+        this.interval = Math.max(1, interval);
+    }
+
+    public boolean hasPendingRun() throws SQLException {
+        String sql = "SELECT 1 FROM match_queue q WHERE NOT EXISTS (SELECT 1 FROM processed_matches p WHERE p.match_id = q.match_id) LIMIT 1";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next();
+        }
+    }
+
+    public List<String> pendingMatchIds() throws SQLException {
+        String sql = "SELECT q.match_id FROM match_queue q WHERE NOT EXISTS (SELECT 1 FROM processed_matches p WHERE p.match_id = q.match_id) ORDER BY q.position";
+        List<String> ids = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                ids.add(rs.getString(1));
+            }
+        }
+        return ids;
+    }
+
+    public List<String> unprocessed(List<String> matchIds) throws SQLException {
+        List<String> pending = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT 1 FROM processed_matches WHERE match_id = ?")) {
+            for (String matchId : matchIds) {
+                pstmt.setString(1, matchId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        pending.add(matchId);
+                    }
+                }
+            }
+        }
+        return pending;
+    }
+
+    public void startRun(List<String> matchIds) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM match_queue;");
+        }
+        String sql = "INSERT OR IGNORE INTO match_queue (position, match_id) VALUES (?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int position = 0;
+            for (String matchId : matchIds) {
+                pstmt.setInt(1, position++);
+                pstmt.setString(2, matchId);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+        checkpoint();
+    }
+
+    public boolean markProcessed(String matchId) throws SQLException {
+        if (markStatement == null) {
+            markStatement = connection.prepareStatement("INSERT OR IGNORE INTO processed_matches (match_id) VALUES (?)");
+        }
+        markStatement.setString(1, matchId);
+        markStatement.executeUpdate();
+        return ++sinceCheckpoint >= interval;
+    }
+
+    public void checkpoint() throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+        sinceCheckpoint = 0;
+    }
+
+    public void finishRun() throws SQLException {
+        if (markStatement != null) {
+            markStatement.close();
+            markStatement = null;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM match_queue;");
+        }
+        checkpoint();
+    }
+}
@@ -2,49 +2,265 @@ package org.example.collector;
 
 import com.merakianalytics.orianna.types.common.Platform;
 import com.merakianalytics.orianna.types.common.Queue;
+import org.example.collector.dao.MatchTierDao;
+import org.example.collector.dao.StatsDao;
+import org.example.collector.dao.WatermarkDao;
+import org.example.metrics.MetricsServer;
+import org.example.service.db.SnapshotRebuilder;
+import org.example.util.AppPaths;
+import org.example.util.PatchVersions;
 import org.example.util.RiotApiClient;
 import org.example.util.RiotRateLimiter;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class CollectorRunner {
     public static void main(String[] args) throws Exception {
+        String mode = System.getenv().getOrDefault("COLLECTOR_MODE", "full").trim().toLowerCase();
+        boolean incremental = "incremental".equals(mode);
+        boolean reaggregate = "reaggregate".equals(mode);
+        boolean crawl = "crawl".equals(mode);
         String apiKey = System.getProperty("RIOT_API_KEY");
-        if (apiKey == null || apiKey.isBlank()) {
+        if (!reaggregate && (apiKey == null || apiKey.isBlank())) {
             System.err.println("RIOT_API_KEY system property not set. Exiting CollectorRunner.");
             return;
         }
-        String platformTag = System.getenv().getOrDefault("RIOT_PLATFORM", "EUROPE_WEST");
+        String platformTags = System.getenv().getOrDefault("RIOT_PLATFORMS", System.getenv().getOrDefault("RIOT_PLATFORM", "EUROPE_WEST"));
         int limit = parseIntEnv("MATCH_LIMIT", 10_000);
         int seeds = parseIntEnv("SEED_COUNT", 150);
         int perSecond = parseIntEnv("RIOT_RATE_PER_SECOND", 20);
         int perTwoMinutes = parseIntEnv("RIOT_RATE_PER_TWO_MINUTES", 100);
+        int concurrency = parseIntEnv("MATCH_CONCURRENCY", 32);
+        int seedConcurrency = parseIntEnv("SEED_CONCURRENCY", 8);
+        int checkpointInterval = parseIntEnv("CHECKPOINT_INTERVAL", 250);
+        int statsBatchSize = parseIntEnv("STATS_BATCH_SIZE", 500);
+        boolean fresh = Boolean.parseBoolean(System.getenv().getOrDefault("COLLECTOR_FRESH", "false"));
+        int metricsPort = parseIntEnv("METRICS_PORT", 0);
+        int patchRetention = parseIntEnv("PATCH_RETENTION", 0);
+        int crawlBatch = parseIntEnv("CRAWL_BATCH", 1_000);
+        int crawlFrontier = parseIntEnv("CRAWL_FRONTIER", 100_000);
+        boolean useStore = Boolean.parseBoolean(System.getenv().getOrDefault("MATCH_STORE", "true"));
+        String apiBaseUrl = System.getenv().getOrDefault("RIOT_API_BASE_URL", "");
+        boolean binarySnapshot = Boolean.parseBoolean(System.getenv().getOrDefault("BINARY_SNAPSHOT", "true"));
+        int patchWindow = parseIntEnv("STATS_PATCH_WINDOW", 2);
 
-        System.out.println("Clearing old data (before new collection)...");
-        DatabaseManager.clearData();
+        List<Platform> platforms = parsePlatforms(platformTags);
+        List<RegionSource> sources = regionSources(platforms, reaggregate ? null : apiKey, apiBaseUrl, perSecond, perTwoMinutes, seedConcurrency);
+        MatchStore store = useStore || reaggregate ? new MatchStore(AppPaths.matchStoreDir()) : null;
 
-        Platform platform = parsePlatform(platformTag);
-        RiotRateLimiter rateLimiter = new RiotRateLimiter(perSecond, Duration.ofSeconds(1), perTwoMinutes, Duration.ofMinutes(2));
-        RiotApiClient apiClient = new RiotApiClient(apiKey, rateLimiter);
-
-        try (Connection connection = DatabaseManager.connect()) {
+        MetricsServer metricsServer = metricsPort > 0 ? MetricsServer.start(metricsPort) : null;
+        if (metricsServer != null) {
+            System.out.println("Serving metrics on http://127.0.0.1:" + metricsServer.port() + "/metrics");
+        }
+        try (metricsServer; Connection connection = DatabaseManager.connectWriter()) {
+            DatabaseManager.setBulkLoad(connection, reaggregate);
+            CheckpointJournal journal = new CheckpointJournal(connection, checkpointInterval);
+            WatermarkDao watermarkDao = new WatermarkDao(connection);
+            MatchTierDao matchTierDao = new MatchTierDao(connection);
+            boolean resume = !fresh && journal.hasPendingRun();
+            if (!resume && !incremental) {
+                System.out.println("Clearing old data (before new collection)...");
+                DatabaseManager.clearData();
+            }
             connection.setAutoCommit(false);
 
-            System.out.println("Fetching match IDs...");
-            MatchFetcher fetcher = new MatchFetcher(platform, apiClient);
-            List<String> matchIds = fetcher.fetchRecentMatchIds(Queue.RANKED_SOLO, limit, seeds);
+            List<String> matchIds;
+            long runStartSeconds = System.currentTimeMillis() / 1000;
+            if (resume) {
+                matchIds = journal.pendingMatchIds();
+                System.out.println("Resuming previous collection from last checkpoint...");
+            } else if (incremental) {
+                System.out.println("Fetching new match IDs since last run...");
+                Map<String, Long> watermarks = watermarkDao.loadAll();
+                matchIds = journal.unprocessed(fetchAcrossRegions(sources, matchTierDao,
+                        source -> source.fetcher().fetchRecentMatchIds(Queue.RANKED_SOLO, limit, seeds, watermarks)));
+                journal.startRun(matchIds);
+            } else if (reaggregate) {
+                System.out.println("Re-aggregating matches from the local match store...");
+                matchIds = store.matchIds();
+                journal.startRun(matchIds);
+            } else {
+                System.out.println("Fetching match IDs...");
+                int regionLimit = crawl ? Math.min(limit, crawlBatch) : limit;
+                matchIds = fetchAcrossRegions(sources, matchTierDao,
+                        source -> source.fetcher().fetchRecentMatchIds(Queue.RANKED_SOLO, regionLimit, seeds));
+                journal.startRun(matchIds);
+            }
 
             System.out.println("Aggregating " + matchIds.size() + " matches...");
-            MatchAggregator aggregator = new MatchAggregator(platform, apiClient, connection);
-            aggregator.aggregate(matchIds);
+            Map<Platform, RiotApiClient> apiClients = new LinkedHashMap<>();
+            for (RegionSource source : sources) {
+                apiClients.put(source.platform(), source.apiClient());
+            }
+            MatchAggregator aggregator = new MatchAggregator(platforms.get(0), apiClients, connection, concurrency, journal, store);
+            aggregator.setStatsBatchSize(statsBatchSize);
+            if (crawl && !resume) {
+                crawl(sources, aggregator, journal, matchTierDao, matchIds, limit, crawlBatch, crawlFrontier, seedConcurrency);
+            } else {
+                aggregator.aggregate(matchIds);
+            }
 
             System.out.println("Committing stats to database...");
-            connection.commit();
-            System.out.println("Done.");
+            for (RegionSource source : sources) {
+                watermarkDao.save(fullyProcessedPuuids(journal, source.fetcher().exhaustedPuuids()), runStartSeconds);
+            }
+            if (patchRetention > 0) {
+                dropRetiredPatches(connection, patchRetention);
+            }
+            journal.finishRun();
+            DatabaseManager.finishWriting(connection);
+        }
+        if (binarySnapshot) {
+            writeBinarySnapshot(patchWindow);
+        }
+        System.out.println("Done.");
+    }
+
+    private static List<String> fullyProcessedPuuids(CheckpointJournal journal, Map<String, List<String>> exhausted) throws SQLException {
+        List<String> allIds = new ArrayList<>();
+        exhausted.values().forEach(allIds::addAll);
+        Set<String> unprocessed = new HashSet<>(journal.unprocessed(allIds));
+        List<String> puuids = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : exhausted.entrySet()) {
+            if (entry.getValue().stream().noneMatch(unprocessed::contains)) {
+                puuids.add(entry.getKey());
+            }
+        }
+        if (puuids.size() < exhausted.size()) {
+            System.out.println("Keeping the previous watermark for " + (exhausted.size() - puuids.size()) + " players whose matches failed; they are refetched next run.");
+        }
+        return puuids;
+    }
+
+    private static void writeBinarySnapshot(int patchWindow) throws SQLException {
+        long startNanos = System.nanoTime();
+        try {
+            Path target = new SnapshotRebuilder().publishBinarySnapshot(AppPaths.binarySnapshotPath(), patchWindow);
+            System.out.printf("Wrote binary snapshot %s (%d KiB) in %d ms%n", target, Files.size(target) / 1024,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (IOException e) {
+            System.err.println("Failed to write binary snapshot; the app will read the database instead: " + e.getMessage());
+        }
+    }
+
+    private static void crawl(List<RegionSource> sources, MatchAggregator aggregator, CheckpointJournal journal, MatchTierDao matchTierDao, List<String> seedMatchIds,
+                              int limit, int batchSize, int frontierCapacity, int expansionBatch) throws Exception {
+        Map<String, SnowballCrawler> crawlers = new HashMap<>();
+        long filterBytes = 0;
+        for (RegionSource source : sources) {
+            SnowballCrawler crawler = new SnowballCrawler(source.fetcher(), Queue.RANKED_SOLO, limit, frontierCapacity, expansionBatch);
+            crawler.seed(source.fetcher().seededPuuids(), seedMatchIds);
+            crawlers.put(source.platform().getTag(), crawler);
+            filterBytes += crawler.filterBytes();
+        }
+        aggregator.setMatchListener((partition, match) -> {
+            SnowballCrawler crawler = crawlers.get(partition.region());
+            if (crawler != null) {
+                crawler.discover(partition.tier(), match);
+            }
+        });
+        System.out.printf("Crawler filters use %.1f MB%n", filterBytes / (1024d * 1024d));
+
+        int totalLimit = limit * sources.size();
+        List<String> batch = seedMatchIds;
+        int total = 0;
+        int round = 0;
+        while (!batch.isEmpty()) {
+            round++;
+            aggregator.aggregate(batch);
+            total += batch.size();
+            long discovered = 0;
+            int frontier = 0;
+            for (SnowballCrawler crawler : crawlers.values()) {
+                discovered += crawler.discoveredPuuids();
+                frontier += crawler.frontierSize();
+            }
+            System.out.printf("Crawl round %d: %d/%d matches, %d PUUIDs discovered, frontier %d%n",
+                    round, total, totalLimit, discovered, frontier);
+            if (total >= totalLimit) break;
+            int regionBatch = Math.min(batchSize, (totalLimit - total + sources.size() - 1) / sources.size());
+            batch = fetchAcrossRegions(sources, matchTierDao, source -> crawlers.get(source.platform().getTag()).nextMatchIds(regionBatch));
+            journal.startRun(batch);
+        }
+    }
+
+    private static void dropRetiredPatches(Connection connection, int retention) throws SQLException {
+        StatsDao statsDao = new StatsDao(connection);
+        List<String> patches = statsDao.patches();
+        List<String> kept = PatchVersions.newest(patches, retention);
+        if (kept.isEmpty()) return;
+        for (String patch : patches) {
+            if (kept.contains(patch)) continue;
+            int rows = statsDao.deletePatch(patch);
+            System.out.println("Dropped " + rows + " rows for retired patch " + (patch.isBlank() ? "(unknown)" : patch) + ".");
+        }
+        DatabaseManager.reclaimFreePages(connection);
+    }
+
+    private static List<RegionSource> regionSources(List<Platform> platforms, String apiKey, String apiBaseUrl, int perSecond, int perTwoMinutes, int seedConcurrency) {
+        Map<String, RiotApiClient> clientsByRoutingHost = new HashMap<>();
+        List<RegionSource> sources = new ArrayList<>();
+        for (Platform platform : platforms) {
+            RiotApiClient apiClient = apiKey == null ? null : clientsByRoutingHost.computeIfAbsent(MatchFetcher.routingHostForPlatform(platform),
+                    host -> new RiotApiClient(apiKey, new RiotRateLimiter(perSecond, Duration.ofSeconds(1), perTwoMinutes, Duration.ofMinutes(2)), apiBaseUrl));
+            sources.add(new RegionSource(platform, apiClient, new MatchFetcher(platform, apiClient, seedConcurrency)));
+        }
+        return sources;
+    }
+
+    private static List<String> fetchAcrossRegions(List<RegionSource> sources, MatchTierDao matchTierDao, RegionTask task) throws Exception {
+        if (sources.size() == 1) {
+            List<String> ids = task.fetch(sources.get(0));
+            matchTierDao.saveAll(sources.get(0).fetcher().drainMatchTiers());
+            return ids;
+        }
+        List<Future<List<String>>> futures = new ArrayList<>();
+        List<List<String>> perRegion = new ArrayList<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (RegionSource source : sources) {
+                futures.add(pool.submit(() -> task.fetch(source)));
+            }
+            for (Future<List<String>> future : futures) {
+                try {
+                    perRegion.add(future.get());
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+        }
+        for (RegionSource source : sources) {
+            matchTierDao.saveAll(source.fetcher().drainMatchTiers());
         }
+
+        int total = perRegion.stream().mapToInt(List::size).sum();
+        List<String> interleaved = new ArrayList<>(total);
+        for (int index = 0; interleaved.size() < total; index++) {
+            for (List<String> ids : perRegion) {
+                if (index < ids.size()) {
+                    interleaved.add(ids.get(index));
+                }
+            }
+        }
+        return interleaved;
     }
 
     private static int parseIntEnv(String key, int fallback) {
@@ -55,13 +271,33 @@ public class CollectorRunner {
         }
     }
 
+    private static List<Platform> parsePlatforms(String tags) {
+        Set<Platform> platforms = new LinkedHashSet<>();
+        for (String tag : tags.split(",")) {
+            platforms.add(parsePlatform(tag));
+        }
+        return new ArrayList<>(platforms);
+    }
+
     private static Platform parsePlatform(String tag) {
         if (tag == null || tag.isBlank()) return Platform.EUROPE_WEST;
         String normalized = tag.trim().toUpperCase().replace("-", "_");
         try {
             return Platform.valueOf(normalized);
         } catch (IllegalArgumentException ex) {
+            for (Platform platform : Platform.values()) {
+                if (platform.getTag().equalsIgnoreCase(normalized)) {
+                    return platform;
+                }
+            }
             return Platform.EUROPE_WEST;
         }
     }
+
+    private interface RegionTask {
+        List<String> fetch(RegionSource source) throws Exception;
+    }
+
+    private record RegionSource(Platform platform, RiotApiClient apiClient, MatchFetcher fetcher) {
+    }
 }
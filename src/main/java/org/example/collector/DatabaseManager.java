@@ -1,18 +1,30 @@
 package org.example.collector;
 
 import org.example.util.AppPaths;
+import org.sqlite.SQLiteConfig;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DatabaseManager {
     private static final Path SNAPSHOT_PATH = AppPaths.snapshotPath();
     private static final String DATABASE_URL = "jdbc:sqlite:" + SNAPSHOT_PATH.toString();
+    private static final long READER_MMAP_BYTES = 256L * 1024 * 1024;
+    private static final int WRITER_CACHE_KIB = 64 * 1024;
+    private static final int MAX_IDLE_READERS = 4;
+    private static final Set<Object> INITIALIZED_FILES = ConcurrentHashMap.newKeySet();
+    private static final ReadOnlyPool READERS = new ReadOnlyPool(DatabaseManager::openImmutable, DatabaseManager::fileVersion, MAX_IDLE_READERS);
 
     public static Connection connect() throws SQLException {
         try {
@@ -21,44 +33,227 @@ public class DatabaseManager {
             throw new SQLException("Failed to prepare snapshot directory", e);
         }
         Connection conn = DriverManager.getConnection(DATABASE_URL);
-        initializeDatabase(conn);
+        Object file = fileIdentity();
+        if (file == null || !INITIALIZED_FILES.contains(file)) {
+            if (initializeDatabase(conn)) {
+                file = fileIdentity();
+                if (file != null) {
+                    INITIALIZED_FILES.add(file);
+                }
+            }
+        }
+        return conn;
+    }
+
+    public static Connection connectWriter() throws SQLException {
+        Connection conn = connect();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL;");
+            stmt.execute("PRAGMA synchronous = NORMAL;");
+            stmt.execute("PRAGMA temp_store = MEMORY;");
+            stmt.execute("PRAGMA cache_size = -" + WRITER_CACHE_KIB + ";");
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
         return conn;
     }
 
-    public static void initializeDatabase(Connection conn) {
-        String[] tables = {
-            "CREATE TABLE IF NOT EXISTS champions (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE);",
-            "CREATE TABLE IF NOT EXISTS champion_stats (champion_id INTEGER PRIMARY KEY, wins INTEGER NOT NULL, plays INTEGER NOT NULL, FOREIGN KEY (champion_id) REFERENCES champions (id));",
-            "CREATE TABLE IF NOT EXISTS role_stats (champion_id INTEGER NOT NULL, role TEXT NOT NULL, plays INTEGER NOT NULL, PRIMARY KEY (champion_id, role), FOREIGN KEY (champion_id) REFERENCES champions (id));",
-            "CREATE TABLE IF NOT EXISTS synergy_stats (champion_id INTEGER NOT NULL, ally_id INTEGER NOT NULL, wins INTEGER NOT NULL, plays INTEGER NOT NULL, PRIMARY KEY (champion_id, ally_id), FOREIGN KEY (champion_id) REFERENCES champions (id), FOREIGN KEY (ally_id) REFERENCES champions (id));",
-            "CREATE TABLE IF NOT EXISTS counter_stats (champion_id INTEGER NOT NULL, enemy_id INTEGER NOT NULL, wins INTEGER NOT NULL, plays INTEGER NOT NULL, PRIMARY KEY (champion_id, enemy_id), FOREIGN KEY (champion_id) REFERENCES champions (id), FOREIGN KEY (enemy_id) REFERENCES champions (id));"
-        };
+    public static void setBulkLoad(Connection conn, boolean bulk) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(bulk ? "PRAGMA synchronous = OFF;" : "PRAGMA synchronous = NORMAL;");
+        }
+    }
+
+    public static void finishWriting(Connection conn) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA wal_checkpoint(TRUNCATE);");
+            stmt.execute("PRAGMA journal_mode = DELETE;");
+        }
+    }
+
+    public static Connection connectReadOnly() throws SQLException {
+        Object file = fileIdentity();
+        if (file == null || !INITIALIZED_FILES.contains(file)) {
+            connect().close();
+        }
+        return READERS.borrow();
+    }
+
+    // Windows cannot replace snapshot.db while a connection holds it open, so callers swapping the file drain the pool first.
+    public static void closeIdleReaders() {
+        READERS.drain();
+    }
+
+    private static Connection openImmutable() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, Long.toString(READER_MMAP_BYTES));
+        return config.createConnection("jdbc:sqlite:" + SNAPSHOT_PATH.toUri() + "?immutable=1");
+    }
+
+    private static Object fileIdentity() {
+        try {
+            return identity(Files.readAttributes(SNAPSHOT_PATH, BasicFileAttributes.class));
+        } catch (IOException e) {
+            return null;
+        }
+    }
 
+    private static Object fileVersion() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(SNAPSHOT_PATH, BasicFileAttributes.class);
+            return List.of(identity(attributes), attributes.lastModifiedTime(), attributes.size());
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static Object identity(BasicFileAttributes attributes) {
+        return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+    }
+
+    private static final int SCHEMA_VERSION = 3;
+    private static final List<TableSpec> TABLES = List.of(
+        new TableSpec("champions", "id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE"),
+        new TableSpec("champion_stats", "patch TEXT NOT NULL DEFAULT '', tier TEXT NOT NULL DEFAULT '', region TEXT NOT NULL DEFAULT '', champion_id INTEGER NOT NULL, wins INTEGER NOT NULL, plays INTEGER NOT NULL, PRIMARY KEY (patch, tier, region, champion_id), FOREIGN KEY (champion_id) REFERENCES champions (id)"),
+        new TableSpec("role_stats", "patch TEXT NOT NULL DEFAULT '', tier TEXT NOT NULL DEFAULT '', region TEXT NOT NULL DEFAULT '', champion_id INTEGER NOT NULL, role TEXT NOT NULL, plays INTEGER NOT NULL, PRIMARY KEY (patch, tier, region, champion_id, role), FOREIGN KEY (champion_id) REFERENCES champions (id)"),
+        new TableSpec("synergy_stats", "patch TEXT NOT NULL DEFAULT '', tier TEXT NOT NULL DEFAULT '', region TEXT NOT NULL DEFAULT '', champion_id INTEGER NOT NULL, ally_id INTEGER NOT NULL, wins INTEGER NOT NULL, plays INTEGER NOT NULL, PRIMARY KEY (patch, tier, region, champion_id, ally_id), FOREIGN KEY (champion_id) REFERENCES champions (id), FOREIGN KEY (ally_id) REFERENCES champions (id)"),
+        new TableSpec("counter_stats", "patch TEXT NOT NULL DEFAULT '', tier TEXT NOT NULL DEFAULT '', region TEXT NOT NULL DEFAULT '', champion_id INTEGER NOT NULL, enemy_id INTEGER NOT NULL, wins INTEGER NOT NULL, plays INTEGER NOT NULL, PRIMARY KEY (patch, tier, region, champion_id, enemy_id), FOREIGN KEY (champion_id) REFERENCES champions (id), FOREIGN KEY (enemy_id) REFERENCES champions (id)"),
+        new TableSpec("match_queue", "position INTEGER PRIMARY KEY, match_id TEXT NOT NULL UNIQUE"),
+        new TableSpec("processed_matches", "match_id TEXT PRIMARY KEY"),
+        new TableSpec("puuid_watermarks", "puuid TEXT PRIMARY KEY, last_fetched INTEGER NOT NULL"),
+        new TableSpec("match_tiers", "match_id TEXT PRIMARY KEY, tier TEXT NOT NULL")
+    );
+    private static final List<String> INDEXES = List.of(
+        "CREATE INDEX IF NOT EXISTS synergy_stats_champion ON synergy_stats (champion_id, ally_id);",
+        "CREATE INDEX IF NOT EXISTS synergy_stats_ally ON synergy_stats (ally_id, champion_id);",
+        "CREATE INDEX IF NOT EXISTS counter_stats_champion ON counter_stats (champion_id, enemy_id);"
+    );
+
+    public static boolean initializeDatabase(Connection conn) {
         try (Statement stmt = conn.createStatement()) {
-            for (String sql : tables) {
-                stmt.execute(sql);
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL;");
+            for (TableSpec table : TABLES) {
+                stmt.execute(table.createSql(table.name()));
             }
+            migrateSchema(conn);
+            for (String index : INDEXES) {
+                stmt.execute(index);
+            }
+            return true;
         } catch (SQLException e) {
             System.err.println("Error initializing database: " + e.getMessage());
+            return false;
         }
     }
 
-    public static void clearData() {
-        String[] tables = {
-            "champion_stats",
-            "role_stats",
-            "synergy_stats",
-            "counter_stats",
-            "champions"
-        };
+    private static void migrateSchema(Connection conn) throws SQLException {
+        int version;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version;")) {
+            version = rs.next() ? rs.getInt(1) : 0;
+        }
+        if (version >= SCHEMA_VERSION) return;
 
-        try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
-            for (String table : tables) {
-                stmt.execute("DELETE FROM " + table + ";");
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (TableSpec table : TABLES) {
+                rebuildIfChanged(stmt, table);
+            }
+            stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION + ";");
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        enableIncrementalVacuum(conn);
+    }
+
+    private static void enableIncrementalVacuum(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA auto_vacuum;")) {
+                if (rs.next() && rs.getInt(1) == 2) return;
+            }
+            System.out.println("Switching database to incremental auto-vacuum...");
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL;");
+            stmt.execute("VACUUM;");
+        }
+    }
+
+    public static void reclaimFreePages(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA incremental_vacuum;");
+        }
+    }
+
+    private static void rebuildIfChanged(Statement stmt, TableSpec table) throws SQLException {
+        String staging = table.name() + "_migrating";
+        stmt.execute("DROP TABLE IF EXISTS " + staging + ";");
+        stmt.execute(table.createSql(staging));
+        Set<String> current = columns(stmt, table.name());
+        Set<String> target = columns(stmt, staging);
+        if (current.containsAll(target)) {
+            stmt.execute("DROP TABLE " + staging + ";");
+            return;
+        }
+
+        current.retainAll(target);
+        String shared = String.join(", ", current);
+        System.out.println("Migrating table " + table.name() + " to schema version " + SCHEMA_VERSION + "...");
+        stmt.execute("INSERT INTO " + staging + " (" + shared + ") SELECT " + shared + " FROM " + table.name() + ";");
+        stmt.execute("DROP TABLE " + table.name() + ";");
+        stmt.execute("ALTER TABLE " + staging + " RENAME TO " + table.name() + ";");
+    }
+
+    private static Set<String> columns(Statement stmt, String table) throws SQLException {
+        Set<String> columns = new LinkedHashSet<>();
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ");")) {
+            while (rs.next()) {
+                columns.add(rs.getString("name"));
             }
+        }
+        return columns;
+    }
+
+    private static final String[] CLEARED_TABLES = {
+        "champion_stats",
+        "role_stats",
+        "synergy_stats",
+        "counter_stats",
+        "champions",
+        "match_queue",
+        "processed_matches",
+        "puuid_watermarks"
+    };
+
+    public static void clearData() {
+        try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
+            clearData(conn);
             stmt.execute("VACUUM;");
         } catch (SQLException e) {
             System.err.println("Error clearing data: " + e.getMessage());
         }
     }
+
+    public static void clearData(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : CLEARED_TABLES) {
+                stmt.execute("DELETE FROM " + table + ";");
+            }
+        }
+    }
+
+    private record TableSpec(String name, String definition) {
+        String createSql(String tableName) {
+            return "CREATE TABLE IF NOT EXISTS " + tableName + " (" + definition + ");";
+        }
+    }
 }
@@ -1,5 +1,8 @@
 package org.example.collector;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.collector.dao.ChampionDao;
 import org.example.model.ChampionStats;
@@ -9,13 +12,30 @@ import org.example.model.WinPlay;
 import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.AbstractMap;
 
 public class JsonToDbMigrator {
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int BULK_BATCH_SIZE = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: JsonToDbMigrator <snapshot.json>");
+            return;
+        }
+        try (Connection connection = DatabaseManager.connectWriter()) {
+            DatabaseManager.setBulkLoad(connection, true);
+            bulkMigrate(new File(args[0]), connection);
+            DatabaseManager.finishWriting(connection);
+        }
+    }
 
     public static void migrate(File jsonFile, Connection connection) throws IOException, SQLException {
         if (!jsonFile.exists()) {
@@ -126,4 +146,346 @@ public class JsonToDbMigrator {
         }
         System.out.println("JSON data successfully migrated to SQLite database.");
     }
-}
\ No newline at end of file
+
+    public static void bulkMigrate(File jsonFile, Connection connection) throws IOException, SQLException {
+        if (!jsonFile.exists()) {
+            System.out.println("JSON snapshot file not found: " + jsonFile.getAbsolutePath());
+            return;
+        }
+
+        System.out.println("Bulk-loading " + jsonFile.getName() + " into SQLite database...");
+        long startNanos = System.nanoTime();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        BulkLoader loader = null;
+        try (JsonParser parser = FACTORY.createParser(jsonFile)) {
+            DatabaseManager.clearData(connection);
+            loader = new BulkLoader(connection);
+            if (!readSnapshot(parser, loader)) {
+                connection.rollback();
+                System.out.println("No data found in JSON snapshot.");
+                return;
+            }
+            loader.finish();
+            connection.commit();
+        } catch (IOException | SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            if (loader != null) {
+                loader.close();
+            }
+            connection.setAutoCommit(autoCommit);
+        }
+
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000d;
+        long rows = loader.rows();
+        System.out.printf("Bulk-loaded %d rows (%s) in %.2fs, %.0f rows/s.%n",
+                rows, loader.summary(), seconds, seconds > 0 ? rows / seconds : 0d);
+    }
+
+    private static boolean readSnapshot(JsonParser parser, BulkLoader loader) throws IOException, SQLException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        boolean found = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("champions".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String championName = parser.currentName();
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readChampion(parser, loader, loader.championId(championName));
+                        found = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return found;
+    }
+
+    private static void readChampion(JsonParser parser, BulkLoader loader, int championId) throws IOException, SQLException {
+        int wins = 0;
+        int games = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "wins" -> wins = parser.getValueAsInt(0);
+                case "games" -> games = parser.getValueAsInt(0);
+                case "roleCounts" -> {
+                    if (value != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String role = parser.currentName();
+                        parser.nextToken();
+                        loader.role(championId, role, parser.getValueAsInt(0));
+                    }
+                }
+                case "synergy", "counters" -> {
+                    if (value != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    boolean synergy = "synergy".equals(field);
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        int otherId = loader.championId(parser.currentName());
+                        parser.nextToken();
+                        int[] winPlay = readWinPlay(parser);
+                        if (synergy) {
+                            loader.synergy(championId, otherId, winPlay[0], winPlay[1]);
+                        } else {
+                            loader.counter(championId, otherId, winPlay[0], winPlay[1]);
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        loader.champion(championId, wins, games);
+    }
+
+    private static int[] readWinPlay(JsonParser parser) throws IOException {
+        int[] winPlay = new int[2];
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return winPlay;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("wins".equals(field)) {
+                winPlay[0] = parser.getValueAsInt(0);
+            } else if ("games".equals(field)) {
+                winPlay[1] = parser.getValueAsInt(0);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return winPlay;
+    }
+
+    private static long packPair(int first, int second) {
+        return ((long) first << 32) | (second & 0xffffffffL);
+    }
+
+    private static final class BulkLoader {
+        private final Connection connection;
+        private final ChampionDao championDao;
+        private final StagedTable champions;
+        private final StagedTable roles;
+        private final StagedTable synergies;
+        private final StagedTable counters;
+        private final LongHashSet synergyPairs = new LongHashSet();
+        private final LongHashSet counterPairs = new LongHashSet();
+
+        BulkLoader(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.championDao = new ChampionDao(connection);
+            this.champions = new StagedTable(connection, "champion_stats", "champion_id INTEGER, wins INTEGER, plays INTEGER",
+                    "champion_id, wins, plays", "champion_id");
+            this.roles = new StagedTable(connection, "role_stats", "champion_id INTEGER, role TEXT, plays INTEGER",
+                    "champion_id, role, plays", "champion_id, role");
+            this.synergies = new StagedTable(connection, "synergy_stats", "champion_id INTEGER, ally_id INTEGER, wins INTEGER, plays INTEGER",
+                    "champion_id, ally_id, wins, plays", "champion_id, ally_id");
+            this.counters = new StagedTable(connection, "counter_stats", "champion_id INTEGER, enemy_id INTEGER, wins INTEGER, plays INTEGER",
+                    "champion_id, enemy_id, wins, plays", "champion_id, enemy_id");
+        }
+
+        int championId(String name) throws SQLException {
+            return championDao.getOrCreateChampion(name);
+        }
+
+        void champion(int championId, int wins, int games) throws SQLException {
+            if (games <= 0) return;
+            PreparedStatement pstmt = champions.insert();
+            pstmt.setInt(1, championId);
+            pstmt.setInt(2, wins);
+            pstmt.setInt(3, games);
+            champions.add();
+        }
+
+        void role(int championId, String role, int plays) throws SQLException {
+            PreparedStatement pstmt = roles.insert();
+            pstmt.setInt(1, championId);
+            pstmt.setString(2, role);
+            pstmt.setInt(3, plays);
+            roles.add();
+        }
+
+        void synergy(int championId, int allyId, int wins, int games) throws SQLException {
+            if (games <= 0) return;
+            int minId = Math.min(championId, allyId);
+            int maxId = Math.max(championId, allyId);
+            if (!synergyPairs.add(packPair(minId, maxId))) return;
+            PreparedStatement pstmt = synergies.insert();
+            pstmt.setInt(1, minId);
+            pstmt.setInt(2, maxId);
+            pstmt.setInt(3, wins);
+            pstmt.setInt(4, games);
+            synergies.add();
+        }
+
+        void counter(int championId, int enemyId, int wins, int games) throws SQLException {
+            if (games <= 0) return;
+            if (!counterPairs.add(packPair(championId, enemyId))) return;
+            PreparedStatement pstmt = counters.insert();
+            pstmt.setInt(1, championId);
+            pstmt.setInt(2, enemyId);
+            pstmt.setInt(3, wins);
+            pstmt.setInt(4, games);
+            counters.add();
+        }
+
+        void finish() throws SQLException {
+            for (StagedTable table : tables()) {
+                table.publish();
+            }
+        }
+
+        long rows() {
+            long rows = 0;
+            for (StagedTable table : tables()) {
+                rows += table.rows();
+            }
+            return rows;
+        }
+
+        String summary() {
+            StringBuilder summary = new StringBuilder();
+            for (StagedTable table : tables()) {
+                if (!summary.isEmpty()) summary.append(", ");
+                summary.append(table.rows()).append(' ').append(table.target());
+            }
+            return summary.toString();
+        }
+
+        void close() throws SQLException {
+            for (StagedTable table : tables()) {
+                table.close();
+            }
+        }
+
+        private StagedTable[] tables() {
+            return new StagedTable[]{champions, roles, synergies, counters};
+        }
+    }
+
+    private static final class StagedTable {
+        private final Connection connection;
+        private final String target;
+        private final String staging;
+        private final String columns;
+        private final String keyOrder;
+        private final PreparedStatement insert;
+        private int pending;
+        private long rows;
+
+        StagedTable(Connection connection, String target, String definition, String columns, String keyOrder) throws SQLException {
+            this.connection = connection;
+            this.target = target;
+            this.staging = "bulk_" + target;
+            this.columns = columns;
+            this.keyOrder = keyOrder;
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS temp." + staging + ";");
+                stmt.execute("CREATE TEMP TABLE " + staging + " (" + definition + ");");
+            }
+            String placeholders = String.join(", ", Arrays.stream(columns.split(",")).map(column -> "?").toList());
+            this.insert = connection.prepareStatement("INSERT INTO temp." + staging + " (" + columns + ") VALUES (" + placeholders + ")");
+        }
+
+        String target() {
+            return target;
+        }
+
+        long rows() {
+            return rows;
+        }
+
+        PreparedStatement insert() {
+            return insert;
+        }
+
+        void add() throws SQLException {
+            insert.addBatch();
+            rows++;
+            if (++pending >= BULK_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void publish() throws SQLException {
+            flush();
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("INSERT OR REPLACE INTO " + target + " (" + columns + ") SELECT " + columns
+                        + " FROM temp." + staging + " ORDER BY " + keyOrder + ";");
+                stmt.execute("DROP TABLE temp." + staging + ";");
+            }
+        }
+
+        void close() throws SQLException {
+            insert.close();
+        }
+
+        private void flush() throws SQLException {
+            if (pending == 0) return;
+            insert.executeBatch();
+            pending = 0;
+        }
+    }
+
+    private static final class LongHashSet {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] slots = newSlots(1 << 12);
+        private int size;
+
+        boolean add(long key) {
+            if ((size + 1) * 2 > slots.length) {
+                grow();
+            }
+            int mask = slots.length - 1;
+            int index = mix(key) & mask;
+            while (slots[index] != EMPTY) {
+                if (slots[index] == key) return false;
+                index = (index + 1) & mask;
+            }
+            slots[index] = key;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = newSlots(old.length * 2);
+            int mask = slots.length - 1;
+            for (long key : old) {
+                if (key == EMPTY) continue;
+                int index = mix(key) & mask;
+                while (slots[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = key;
+            }
+        }
+
+        private static long[] newSlots(int capacity) {
+            long[] slots = new long[capacity];
+            Arrays.fill(slots, EMPTY);
+            return slots;
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -1,100 +1,293 @@
 package org.example.collector;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.merakianalytics.orianna.types.common.Platform;
 import org.example.collector.dao.ChampionDao;
+import org.example.collector.dao.MatchTierDao;
 import org.example.collector.dao.StatsDao;
+import org.example.metrics.Counter;
+import org.example.metrics.Gauge;
+import org.example.metrics.Histogram;
+import org.example.metrics.Metrics;
+import org.example.util.ApiPayload;
 import org.example.util.RiotApiClient;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
 
 public class MatchAggregator {
-    private final Platform platform;
-    private final RiotApiClient apiClient;
+    private static final int MIN_QUEUE_CAPACITY = 16;
+    private static final Histogram PARSE_TIME = Metrics.latency("match_parse_seconds", "Time to read and parse one match payload.");
+    private static final Histogram FLUSH_TIME = Metrics.latency("stats_flush_seconds", "Time to flush accumulated stats to the database.");
+    private static final Counter MATCHES = Metrics.counter("matches_total", "Matches handled by the aggregator, by region and outcome.", "region", "outcome");
+    private static final Gauge HANDOFF_DEPTH = Metrics.gauge("aggregator_handoff_depth", "Fetched matches waiting for the writer thread.");
+    private static final Gauge IN_FLIGHT = Metrics.gauge("aggregator_in_flight_fetches", "Match fetches currently in flight, by region.", "region");
+
+    private final Platform defaultPlatform;
+    private final Map<String, Platform> platforms = new HashMap<>();
+    private final Map<String, RiotApiClient> apiClients = new HashMap<>();
     private final ChampionDao championDao;
     private final StatsDao statsDao;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final MatchTierDao matchTierDao;
+    private final StatsAccumulator accumulator = new StatsAccumulator();
+    private final ParticipantExtractor extractor = new ParticipantExtractor();
+    private final int concurrency;
+    private final CheckpointJournal journal;
+    private final MatchStore store;
+    private BiConsumer<StatsPartition, MatchSummary> matchListener = (partition, match) -> { };
 
     public MatchAggregator(Platform platform, RiotApiClient apiClient, Connection connection) {
-        this.platform = platform;
-        this.apiClient = apiClient;
+        this(platform, apiClient, connection, 1, null, null);
+    }
+
+    public MatchAggregator(Platform platform, RiotApiClient apiClient, Connection connection, int concurrency, CheckpointJournal journal, MatchStore store) {
+        this(platform, singleRegion(platform, apiClient), connection, concurrency, journal, store);
+    }
+
+    public MatchAggregator(Platform defaultPlatform, Map<Platform, RiotApiClient> apiClients, Connection connection, int concurrency, CheckpointJournal journal, MatchStore store) {
+        this.defaultPlatform = defaultPlatform;
+        for (Map.Entry<Platform, RiotApiClient> entry : apiClients.entrySet()) {
+            platforms.put(entry.getKey().getTag(), entry.getKey());
+            if (entry.getValue() != null) {
+                this.apiClients.put(entry.getKey().getTag(), entry.getValue());
+            }
+        }
         this.championDao = new ChampionDao(connection);
         this.statsDao = new StatsDao(connection);
+        this.matchTierDao = new MatchTierDao(connection);
+        this.concurrency = Math.max(1, concurrency);
+        this.journal = journal;
+        this.store = store;
+    }
+
+    public void setStatsBatchSize(int batchSize) {
+        statsDao.setBatchSize(batchSize);
+    }
+
+    public void setMatchListener(BiConsumer<StatsPartition, MatchSummary> matchListener) {
+        this.matchListener = matchListener;
     }
 
     public void aggregate(List<String> matchIds) throws InterruptedException, SQLException {
+        if (concurrency > 1 && matchIds.size() > 1) {
+            aggregateConcurrently(matchIds);
+        } else {
+            aggregateSequentially(matchIds);
+        }
+        flushAccumulators();
+    }
+
+    private static Map<Platform, RiotApiClient> singleRegion(Platform platform, RiotApiClient apiClient) {
+        Map<Platform, RiotApiClient> clients = new HashMap<>();
+        clients.put(platform, apiClient);
+        return clients;
+    }
+
+    private void aggregateSequentially(List<String> matchIds) throws InterruptedException, SQLException {
         long startNanos = System.nanoTime();
         int processed = 0;
 
         for (String matchId : matchIds) {
+            boolean aggregated;
             try {
-                JsonNode match = fetchMatch(matchId);
-                if (match == null) continue;
-                JsonNode info = match.get("info");
-                if (info == null) continue;
-                JsonNode participantsNode = info.get("participants");
-                if (participantsNode == null || !participantsNode.isArray()) continue;
-
-                Map<Integer, List<JsonNode>> byTeam = new HashMap<>();
-                for (JsonNode participant : participantsNode) {
-                    int teamId = participant.path("teamId").asInt();
-                    byTeam.computeIfAbsent(teamId, k -> new ArrayList<>()).add(participant);
-                }
+                aggregated = processMatch(fetchMatch(matchId));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw ie;
+            } catch (IOException | SQLException e) {
+                MATCHES.inc(regionOf(matchId), "failed");
+                System.err.println("Failed to process match " + matchId + ": " + e.getMessage());
+                continue;
+            }
+            markProcessed(matchId);
+            MATCHES.inc(regionOf(matchId), aggregated ? "aggregated" : "empty");
+            if (!aggregated) continue;
+            processed++;
+            if (processed % 50 == 0 || processed == matchIds.size()) {
+                logAggregationProgress(processed, matchIds.size(), startNanos);
+            }
+        }
+    }
+
+    private void aggregateConcurrently(List<String> matchIds) throws InterruptedException, SQLException {
+        long startNanos = System.nanoTime();
+        int processed = 0;
+        Map<String, List<String>> byRegion = new LinkedHashMap<>();
+        for (String matchId : matchIds) {
+            byRegion.computeIfAbsent(regionOf(matchId), key -> new ArrayList<>()).add(matchId);
+        }
+        BlockingQueue<FetchedMatch> handOff = new ArrayBlockingQueue<>(Math.max(MIN_QUEUE_CAPACITY, concurrency * byRegion.size()));
+        Map<String, Semaphore> inFlight = new HashMap<>();
+        List<Thread> dispatchers = new ArrayList<>();
+        for (Map.Entry<String, List<String>> region : byRegion.entrySet()) {
+            Semaphore permits = new Semaphore(concurrency, true);
+            inFlight.put(region.getKey(), permits);
+            dispatchers.add(Thread.ofVirtual().name("match-dispatcher-" + region.getKey())
+                    .start(() -> dispatch(region.getKey(), region.getValue(), permits, handOff)));
+        }
 
-                for (JsonNode participant : participantsNode) {
-                    String champName = participant.path("championName").asText("");
-                    if (champName.isBlank()) continue;
-
-                    int championId = championDao.getOrCreateChampion(champName);
-                    boolean win = participant.path("win").asBoolean(false);
-                    String role = deriveRole(participant);
-
-                    statsDao.upsertChampionStats(championId, win);
-                    statsDao.upsertRoleStats(championId, role);
-
-                    String puuid = participant.path("puuid").asText("");
-                    int teamId = participant.path("teamId").asInt();
-
-                    List<JsonNode> allies = byTeam.getOrDefault(teamId, List.of());
-                    for (JsonNode ally : allies) {
-                        String allyChampName = ally.path("championName").asText("");
-                        if (puuid.equals(ally.path("puuid").asText("")) || allyChampName.isBlank()) {
-                            continue;
-                        }
-                        int allyId = championDao.getOrCreateChampion(allyChampName);
-                        statsDao.upsertSynergyStats(championId, allyId, win);
-                    }
-
-                    for (Map.Entry<Integer, List<JsonNode>> entry : byTeam.entrySet()) {
-                        if (entry.getKey() == teamId) continue;
-                        for (JsonNode enemy : entry.getValue()) {
-                            String enemyChampName = enemy.path("championName").asText("");
-                            if (enemyChampName.isBlank()) continue;
-                            int enemyId = championDao.getOrCreateChampion(enemyChampName);
-                            statsDao.upsertCounterStats(championId, enemyId, win);
-                        }
-                    }
+        try {
+            for (int received = 0; received < matchIds.size(); received++) {
+                FetchedMatch fetched = handOff.take();
+                String region = regionOf(fetched.matchId());
+                inFlight.get(region).release();
+                IN_FLIGHT.add(-1, region);
+                HANDOFF_DEPTH.set(handOff.size());
+                if (fetched.error() != null) {
+                    MATCHES.inc(region, "failed");
+                    System.err.println("Failed to process match " + fetched.matchId() + ": " + fetched.error().getMessage());
+                    continue;
+                }
+                boolean aggregated;
+                try {
+                    aggregated = processMatch(fetched.match());
+                } catch (SQLException e) {
+                    MATCHES.inc(region, "failed");
+                    System.err.println("Failed to process match " + fetched.matchId() + ": " + e.getMessage());
+                    continue;
                 }
+                markProcessed(fetched.matchId());
+                MATCHES.inc(region, aggregated ? "aggregated" : "empty");
+                if (!aggregated) continue;
                 processed++;
                 if (processed % 50 == 0 || processed == matchIds.size()) {
                     logAggregationProgress(processed, matchIds.size(), startNanos);
                 }
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                throw ie;
-            } catch (IOException | SQLException e) {
-                System.err.println("Failed to process match " + matchId + ": " + e.getMessage());
             }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw ie;
+        } finally {
+            for (Thread dispatcher : dispatchers) {
+                dispatcher.interrupt();
+            }
+        }
+    }
+
+    private void dispatch(String region, List<String> matchIds, Semaphore inFlight, BlockingQueue<FetchedMatch> handOff) {
+        int dispatched = 0;
+        try {
+            for (String matchId : matchIds) {
+                inFlight.acquire();
+                IN_FLIGHT.add(1, region);
+                CompletableFuture<MatchSummary> fetch;
+                try {
+                    fetch = fetchMatchAsync(matchId);
+                } catch (Throwable t) {
+                    fetch = CompletableFuture.failedFuture(t);
+                }
+                fetch.whenComplete((match, error) ->
+                        handOff(handOff, new FetchedMatch(matchId, match, unwrap(error))));
+                dispatched++;
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            failUndispatched(region, matchIds.subList(dispatched, matchIds.size()), t, inFlight, handOff);
+        }
+    }
+
+    // The writer waits for one result per match id, so every id a dead dispatcher never handed off is failed explicitly.
+    // Each failure holds a permit like a real fetch, which keeps the writer's releases balanced and the queue in bounds.
+    private void failUndispatched(String region, List<String> matchIds, Throwable error, Semaphore inFlight,
+                                  BlockingQueue<FetchedMatch> handOff) {
+        try {
+            for (String matchId : matchIds) {
+                inFlight.acquire();
+                IN_FLIGHT.add(1, region);
+                handOff(handOff, new FetchedMatch(matchId, null, error));
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
         }
     }
 
+    // Permits cap the queue below its capacity, so put never waits; interrupts are deferred rather than losing a result.
+    private static void handOff(BlockingQueue<FetchedMatch> handOff, FetchedMatch fetched) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                handOff.put(fetched);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void markProcessed(String matchId) throws SQLException {
+        if (journal != null && journal.markProcessed(matchId)) {
+            flushAccumulators();
+            journal.checkpoint();
+            System.out.println("Checkpoint committed.");
+        }
+    }
+
+    private void flushAccumulators() throws SQLException {
+        long startNanos = System.nanoTime();
+        accumulator.flush(statsDao);
+        statsDao.flush();
+        FLUSH_TIME.observeNanos(System.nanoTime() - startNanos);
+    }
+
+    private String regionOf(String matchId) {
+        String tag = MatchSummary.platformTag(matchId);
+        return tag.isEmpty() ? defaultPlatform.getTag() : tag;
+    }
+
+    private Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    private boolean processMatch(MatchSummary match) throws SQLException {
+        if (match == null) return false;
+        List<MatchParticipant> participants = match.participants();
+        if (participants.isEmpty()) return false;
+        StatsPartition partition = new StatsPartition(match.patch(), matchTierDao.tierOf(match.matchId()), regionOf(match.matchId()));
+
+        for (int i = 0; i < participants.size(); i++) {
+            MatchParticipant participant = participants.get(i);
+            if (participant.championName().isBlank()) continue;
+
+            int championId = championDao.getOrCreateChampion(participant.championName());
+            boolean win = participant.win();
+
+            accumulator.addChampion(partition, championId, win);
+            accumulator.addRole(partition, championId, participant.role());
+
+            for (int j = 0; j < participants.size(); j++) {
+                MatchParticipant other = participants.get(j);
+                if (i == j || other.championName().isBlank()) continue;
+                int otherId = championDao.getOrCreateChampion(other.championName());
+                if (other.teamId() == participant.teamId()) {
+                    accumulator.addSynergy(partition, championId, otherId, win);
+                } else {
+                    accumulator.addCounter(partition, championId, otherId, win);
+                }
+            }
+        }
+        matchListener.accept(partition, match);
+        return true;
+    }
+
     private void logAggregationProgress(int processed, int total, long startNanos) {
         double elapsedSeconds = (System.nanoTime() - startNanos) / 1_000_000_000d;
         double progress = total > 0 ? (double) processed / total : 0d;
@@ -117,17 +310,86 @@ public class MatchAggregator {
         return String.format("%.1fs", seconds);
     }
 
-    private JsonNode fetchMatch(String matchId) throws IOException, InterruptedException {
-        String regionHost = MatchFetcher.routingHostForPlatform(platform);
-        String url = "https://" + regionHost + "/lol/match/v5/matches/" + matchId;
-        String body = apiClient.get(url);
-        return mapper.readTree(body);
+    private MatchSummary fetchMatch(String matchId) throws IOException, InterruptedException {
+        MatchSummary cached = readCached(matchId);
+        if (cached != null) {
+            return cached;
+        }
+        ApiPayload payload = requireApiClient(matchId).getPayload(matchUrl(matchId));
+        storeMatch(matchId, payload);
+        return parse(payload);
+    }
+
+    public CompletableFuture<MatchSummary> fetchMatchAsync(String matchId) {
+        RiotApiClient apiClient;
+        try {
+            MatchSummary cached = readCached(matchId);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            apiClient = requireApiClient(matchId);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return apiClient.getPayloadAsync(matchUrl(matchId)).thenApply(payload -> {
+            try {
+                storeMatch(matchId, payload);
+                return parse(payload);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private MatchSummary readCached(String matchId) {
+        if (store == null || !store.contains(matchId)) return null;
+        try (InputStream in = store.open(matchId)) {
+            long startNanos = System.nanoTime();
+            MatchSummary summary = extractor.extract(in);
+            PARSE_TIME.observeNanos(System.nanoTime() - startNanos);
+            return summary;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable cached match " + matchId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private MatchSummary parse(ApiPayload payload) throws IOException {
+        long startNanos = System.nanoTime();
+        MatchSummary summary;
+        try (InputStream in = payload.open()) {
+            summary = extractor.extract(in);
+        }
+        PARSE_TIME.observeNanos(System.nanoTime() - startNanos);
+        return summary;
+    }
+
+    private void storeMatch(String matchId, ApiPayload payload) {
+        if (store == null) return;
+        try {
+            if (payload.isGzip()) {
+                store.writeCompressed(matchId, payload.raw());
+            } else {
+                store.write(matchId, payload.raw());
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to cache match " + matchId + ": " + e.getMessage());
+        }
+    }
+
+    private RiotApiClient requireApiClient(String matchId) throws IOException {
+        RiotApiClient apiClient = apiClients.get(regionOf(matchId));
+        if (apiClient == null) {
+            throw new IOException("Match " + matchId + " is not cached and no API client is available for region " + regionOf(matchId));
+        }
+        return apiClient;
+    }
+
+    private String matchUrl(String matchId) {
+        String regionHost = MatchFetcher.routingHostForPlatform(platforms.getOrDefault(regionOf(matchId), defaultPlatform));
+        return "https://" + regionHost + "/lol/match/v5/matches/" + matchId;
     }
 
-    private String deriveRole(JsonNode participant) {
-        String role = participant.path("teamPosition").asText("");
-        if (role.isBlank()) role = participant.path("role").asText("");
-        if (role.isBlank()) role = participant.path("lane").asText("");
-        return role == null ? "" : role.toUpperCase();
+    private record FetchedMatch(String matchId, MatchSummary match, Throwable error) {
     }
-}
\ No newline at end of file
+}
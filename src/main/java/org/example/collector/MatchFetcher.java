@@ -8,9 +8,17 @@ import org.example.util.RiotApiClient;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 
 public class MatchFetcher {
     private static final List<String> HIGH_COMPETITIVE_TIERS = List.of(
@@ -20,83 +28,184 @@ public class MatchFetcher {
             "DIAMOND",
             "EMERALD"
     );
+    private static final int PAGES_PER_TIER = 5;
+    private static final long WATERMARK_OVERLAP_SECONDS = 3600;
     private final Platform platform;
     private final RiotApiClient apiClient;
+    private final int concurrency;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final List<String> seededPuuids = new ArrayList<>();
+    private final Map<String, List<String>> exhaustedPuuids = new LinkedHashMap<>();
+    private final Map<String, String> matchTiers = new LinkedHashMap<>();
 
     public MatchFetcher(Platform platform, RiotApiClient apiClient) {
+        this(platform, apiClient, 1);
+    }
+
+    public MatchFetcher(Platform platform, RiotApiClient apiClient, int concurrency) {
         this.platform = platform;
         this.apiClient = apiClient;
+        this.concurrency = Math.max(1, concurrency);
     }
 
     public List<String> fetchRecentMatchIds(Queue queue, int limit, int seeds) throws InterruptedException {
+        return fetchRecentMatchIds(queue, limit, seeds, Map.of());
+    }
+
+    public List<String> fetchRecentMatchIds(Queue queue, int limit, int seeds, Map<String, Long> watermarks) throws InterruptedException {
+        seededPuuids.clear();
+        exhaustedPuuids.clear();
+        List<Seed> tierSeeds = fetchTierPuuids(queue, seeds);
+        return expandPuuids(tierSeeds, queue, limit, watermarks, id -> true, seededPuuids, exhaustedPuuids);
+    }
+
+    public List<String> fetchMatchIdsForPuuids(List<Seed> puuids, Queue queue, int limit, Predicate<String> accept) throws InterruptedException {
+        return expandPuuids(puuids, queue, limit, Map.of(), accept, new ArrayList<>(), new LinkedHashMap<>());
+    }
+
+    private List<String> expandPuuids(List<Seed> puuids, Queue queue, int limit, Map<String, Long> watermarks, Predicate<String> accept,
+                                      List<String> expanded, Map<String, List<String>> exhausted) throws InterruptedException {
         Set<String> matchIds = new LinkedHashSet<>();
-        List<String> puuids = fetchTierPuuids(queue, seeds);
         long startNanos = System.nanoTime();
         if (puuids.isEmpty()) {
             return new ArrayList<>();
         }
 
-        int seedIndex = 0;
-        for (String puuid : puuids) {
-            if (matchIds.size() >= limit) break;
-            seedIndex++;
-            try {
-                long seedStart = System.nanoTime();
-                List<String> ids = fetchMatchIdsForPuuid(puuid, queue, limit - matchIds.size());
-                int beforeAdd = matchIds.size();
-                matchIds.addAll(ids);
-                logSeedProgress(seedIndex, puuids.size(), matchIds.size() - beforeAdd, matchIds.size(), limit, startNanos, seedStart);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                throw ie;
-            } catch (Exception e) {
-            }
-        }
+        int[] requested = new int[puuids.size()];
+        fanOutOrdered(puuids.size(),
+                index -> {
+                    String puuid = puuids.get(index).puuid();
+                    requested[index] = fetchCount(limit - matchIds.size());
+                    return fetchMatchIdsForPuuidAsync(puuid, queue, requested[index], startTime(watermarks.get(puuid)));
+                },
+                (index, ids, launchedNanos) -> {
+                    if (ids != null) {
+                        Seed seed = puuids.get(index);
+                        expanded.add(seed.puuid());
+                        int beforeAdd = matchIds.size();
+                        boolean complete = ids.size() < requested[index];
+                        for (String id : ids) {
+                            if (matchIds.size() >= limit) {
+                                complete = false;
+                                break;
+                            }
+                            if (!matchIds.contains(id) && accept.test(id)) {
+                                matchIds.add(id);
+                                matchTiers.putIfAbsent(id, seed.tier());
+                            }
+                        }
+                        if (complete) {
+                            exhausted.put(seed.puuid(), List.copyOf(ids));
+                        }
+                        logSeedProgress(index + 1, puuids.size(), matchIds.size() - beforeAdd, matchIds.size(), limit, startNanos, launchedNanos);
+                    }
+                    return matchIds.size() >= limit;
+                });
         return new ArrayList<>(matchIds);
     }
 
-    private List<String> fetchTierPuuids(Queue queue, int seeds) throws InterruptedException {
-        List<String> puuids = new ArrayList<>();
-        try {
-            String host = hostForPlatform(platform);
+    public List<String> seededPuuids() {
+        return List.copyOf(seededPuuids);
+    }
+
+    // PUUIDs whose whole id list since their watermark was queued, with those ids; a PUUID may only advance to the
+    // run start once all of its matches have been processed.
+    public Map<String, List<String>> exhaustedPuuids() {
+        return Map.copyOf(exhaustedPuuids);
+    }
+
+    public Map<String, String> drainMatchTiers() {
+        Map<String, String> drained = new LinkedHashMap<>(matchTiers);
+        matchTiers.clear();
+        return drained;
+    }
+
+    private Long startTime(Long watermark) {
+        return watermark == null ? null : Math.max(0, watermark - WATERMARK_OVERLAP_SECONDS);
+    }
 
-            for (String tier : HIGH_COMPETITIVE_TIERS) {
-                for (int page = 1; page <= 5 && puuids.size() < seeds; page++) {
-                    String url = "https://" + host + "/lol/league-exp/v4/entries/RANKED_SOLO_5x5/" + tier + "/I?page=" + page;
-                    String body = apiClient.get(url);
-                    JsonNode root = mapper.readTree(body);
+    private List<Seed> fetchTierPuuids(Queue queue, int seeds) throws InterruptedException {
+        List<Seed> puuids = new ArrayList<>();
+        boolean[] exhausted = new boolean[HIGH_COMPETITIVE_TIERS.size()];
+        String host = hostForPlatform(platform);
+
+        fanOutOrdered(HIGH_COMPETITIVE_TIERS.size() * PAGES_PER_TIER,
+                index -> {
+                    int tier = index / PAGES_PER_TIER;
+                    if (exhausted[tier]) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    int page = index % PAGES_PER_TIER + 1;
+                    String url = "https://" + host + "/lol/league-exp/v4/entries/RANKED_SOLO_5x5/" + HIGH_COMPETITIVE_TIERS.get(tier) + "/I?page=" + page;
+                    return apiClient.getAsync(url).thenApply(this::readJson);
+                },
+                (index, root, launchedNanos) -> {
+                    int tier = index / PAGES_PER_TIER;
+                    if (exhausted[tier]) {
+                        return false;
+                    }
                     if (root == null || !root.isArray()) {
-                        break;
+                        exhausted[tier] = true;
+                        return false;
                     }
                     for (JsonNode entry : root) {
                         if (puuids.size() >= seeds) break;
                         JsonNode puuidNode = entry.get("puuid");
                         String puuid = puuidNode != null ? puuidNode.asText() : null;
                         if (puuid != null && !puuid.isBlank()) {
-                            puuids.add(puuid);
+                            puuids.add(new Seed(puuid, HIGH_COMPETITIVE_TIERS.get(tier)));
                         }
                     }
+                    return puuids.size() >= seeds;
+                });
+        return puuids;
+    }
+
+    private <T> void fanOutOrdered(int taskCount, IntFunction<CompletableFuture<T>> launcher, OrderedSink<T> sink) throws InterruptedException {
+        List<CompletableFuture<T>> launched = new ArrayList<>(taskCount);
+        long[] launchedNanos = new long[taskCount];
+        int next = 0;
+        try {
+            for (int consumed = 0; consumed < taskCount; consumed++) {
+                while (next < taskCount && next - consumed < concurrency) {
+                    launchedNanos[next] = System.nanoTime();
+                    launched.add(launch(launcher, next));
+                    next++;
+                }
+                T result;
+                try {
+                    result = launched.get(consumed).get();
+                } catch (ExecutionException | CancellationException e) {
+                    result = null;
+                }
+                if (sink.accept(consumed, result, launchedNanos[consumed])) {
+                    return;
                 }
-                if (puuids.size() >= seeds) break;
             }
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
             throw ie;
-        } catch (Exception e) {
-        }
-        if (puuids.isEmpty()) {
-            try {
-                String host = hostForPlatform(platform);
-                String url = "https://" + host + "/lol/league-exp/v4/entries/RANKED_SOLO_5x5/EMERALD/I?page=1";
-                String body = apiClient.get(url);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                throw ie;
-            } catch (Exception debugEx) {
+        } finally {
+            for (CompletableFuture<T> future : launched) {
+                future.cancel(true);
             }
         }
-        return puuids;
+    }
+
+    private <T> CompletableFuture<T> launch(IntFunction<CompletableFuture<T>> launcher, int index) {
+        try {
+            return launcher.apply(index);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private JsonNode readJson(String body) {
+        try {
+            return mapper.readTree(body);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
     }
 
     private String truncate(String s, int max) {
@@ -130,11 +239,27 @@ public class MatchFetcher {
         return String.format("%.1fs", seconds);
     }
 
-    private List<String> fetchMatchIdsForPuuid(String puuid, Queue queue, int count) throws IOException, InterruptedException {
-        int fetchCount = Math.min(Math.max(count, 1), 100);
+    public CompletableFuture<List<String>> fetchMatchIdsForPuuidAsync(String puuid, Queue queue, int count, Long startTime) {
+        return apiClient.getAsync(matchIdsUrl(puuid, queue, count, startTime)).thenApply(body -> {
+            try {
+                return parseMatchIds(body);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private static int fetchCount(int count) {
+        return Math.min(Math.max(count, 1), 100);
+    }
+
+    private String matchIdsUrl(String puuid, Queue queue, int count, Long startTime) {
         String regionHost = routingHostForPlatform(platform);
-        String url = "https://" + regionHost + "/lol/match/v5/matches/by-puuid/" + puuid + "/ids?queue=" + queue.getId() + "&count=" + fetchCount;
-        String body = apiClient.get(url);
+        String url = "https://" + regionHost + "/lol/match/v5/matches/by-puuid/" + puuid + "/ids?queue=" + queue.getId() + "&count=" + fetchCount(count);
+        return startTime == null ? url : url + "&startTime=" + startTime;
+    }
+
+    private List<String> parseMatchIds(String body) throws IOException {
         JsonNode root = mapper.readTree(body);
         List<String> ids = new ArrayList<>();
         if (root != null && root.isArray()) {
@@ -145,6 +270,13 @@ public class MatchFetcher {
         return ids;
     }
 
+    public record Seed(String puuid, String tier) {
+    }
+
+    private interface OrderedSink<T> {
+        boolean accept(int index, T result, long launchedNanos);
+    }
+
     public static String hostForPlatform(Platform p) {
         String tag = p.getTag().toUpperCase();
         return switch (tag) {
@@ -154,13 +286,11 @@ public class MatchFetcher {
     }
 
     public static String routingHostForPlatform(Platform p) {
-        String tag = p.getTag().toUpperCase();
-        return switch (tag) {
-            case "EUW", "EUNE", "TR", "RU" -> "europe.api.riotgames.com";
-            case "NA", "BR", "LA1", "LA2" -> "americas.api.riotgames.com";
-            case "KR", "JP" -> "asia.api.riotgames.com";
-            case "OC" -> "sea.api.riotgames.com";
-            default -> "europe.api.riotgames.com";
+        return switch (p) {
+            case EUROPE_WEST, EUROPE_NORTH_EAST, TURKEY, RUSSIA -> "europe.api.riotgames.com";
+            case NORTH_AMERICA, BRAZIL, LATIN_AMERICA_NORTH, LATIN_AMERICA_SOUTH -> "americas.api.riotgames.com";
+            case KOREA, JAPAN -> "asia.api.riotgames.com";
+            case OCEANIA, PHILIPPINES, SINGAPORE, THAILAND, TAIWAN, VIETNAM -> "sea.api.riotgames.com";
         };
     }
-}
\ No newline at end of file
+}
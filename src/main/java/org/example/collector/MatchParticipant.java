@@ -0,0 +1,4 @@
+package org.example.collector;
+
+public record MatchParticipant(String championName, boolean win, int teamId, String puuid, String role) {
+}
@@ -0,0 +1,92 @@
+package org.example.collector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class MatchStore {
+    private static final String SUFFIX = ".json.gz";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path root;
+
+    public MatchStore(Path root) {
+        this.root = root;
+    }
+
+    public boolean contains(String matchId) {
+        return Files.isRegularFile(pathFor(matchId));
+    }
+
+    public InputStream open(String matchId) throws IOException {
+        InputStream file = Files.newInputStream(pathFor(matchId));
+        try {
+            return new GZIPInputStream(file, BUFFER_SIZE);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public void write(String matchId, byte[] body) throws IOException {
+        writeAtomically(matchId, body, true);
+    }
+
+    public void writeCompressed(String matchId, byte[] gzipBody) throws IOException {
+        writeAtomically(matchId, gzipBody, false);
+    }
+
+    private void writeAtomically(String matchId, byte[] body, boolean compress) throws IOException {
+        Path file = pathFor(matchId);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), matchId, ".tmp");
+        try {
+            try (OutputStream out = compress ? new GZIPOutputStream(Files.newOutputStream(temp)) : Files.newOutputStream(temp)) {
+                out.write(body);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public List<String> matchIds() throws IOException {
+        List<String> ids = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return ids;
+        }
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> name.substring(0, name.length() - SUFFIX.length()))
+                    .sorted()
+                    .forEach(ids::add);
+        }
+        return ids;
+    }
+
+    private Path pathFor(String matchId) {
+        return root.resolve(shard(matchId)).resolve(matchId + SUFFIX);
+    }
+
+    private static String shard(String matchId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(matchId.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().toHexDigits(digest[0]);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.collector;
+
+import org.example.util.PatchVersions;
+
+import java.util.List;
+
+public record MatchSummary(String matchId, String gameVersion, List<MatchParticipant> participants) {
+    public String platformTag() {
+        return platformTag(matchId);
+    }
+
+    public String patch() {
+        return PatchVersions.patchOf(gameVersion);
+    }
+
+    public static String platformTag(String matchId) {
+        int separator = matchId == null ? -1 : matchId.indexOf('_');
+        return separator > 0 ? matchId.substring(0, separator).toUpperCase() : "";
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.collector;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParticipantExtractor {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    public MatchSummary extract(byte[] body) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(body)) {
+            return extract(parser);
+        }
+    }
+
+    public MatchSummary extract(InputStream in) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            return extract(parser);
+        }
+    }
+
+    private MatchSummary extract(JsonParser parser) throws IOException {
+        String matchId = "";
+        MatchInfo info = MatchInfo.EMPTY;
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return new MatchSummary(matchId, info.gameVersion(), info.participants());
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("metadata".equals(field) && value == JsonToken.START_OBJECT) {
+                matchId = readMatchId(parser);
+            } else if ("info".equals(field) && value == JsonToken.START_OBJECT) {
+                info = readInfo(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new MatchSummary(matchId, info.gameVersion(), info.participants());
+    }
+
+    private String readMatchId(JsonParser parser) throws IOException {
+        String matchId = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("matchId".equals(field)) {
+                matchId = parser.getValueAsString("");
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return matchId;
+    }
+
+    private MatchInfo readInfo(JsonParser parser) throws IOException {
+        String gameVersion = "";
+        List<MatchParticipant> participants = List.of();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("participants".equals(field) && value == JsonToken.START_ARRAY) {
+                participants = readParticipants(parser);
+            } else if ("gameVersion".equals(field)) {
+                gameVersion = parser.getValueAsString("");
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new MatchInfo(gameVersion, participants);
+    }
+
+    private List<MatchParticipant> readParticipants(JsonParser parser) throws IOException {
+        List<MatchParticipant> participants = new ArrayList<>(10);
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                participants.add(readParticipant(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return participants;
+    }
+
+    private MatchParticipant readParticipant(JsonParser parser) throws IOException {
+        String championName = "";
+        boolean win = false;
+        int teamId = 0;
+        String puuid = "";
+        String teamPosition = "";
+        String role = "";
+        String lane = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "championName" -> championName = parser.getValueAsString("");
+                case "win" -> win = parser.getValueAsBoolean(false);
+                case "teamId" -> teamId = parser.getValueAsInt(0);
+                case "puuid" -> puuid = parser.getValueAsString("");
+                case "teamPosition" -> teamPosition = parser.getValueAsString("");
+                case "role" -> role = parser.getValueAsString("");
+                case "lane" -> lane = parser.getValueAsString("");
+                default -> parser.skipChildren();
+            }
+        }
+        return new MatchParticipant(championName, win, teamId, puuid, deriveRole(teamPosition, role, lane));
+    }
+
+    private String deriveRole(String teamPosition, String role, String lane) {
+        String derived = teamPosition;
+        if (derived.isBlank()) derived = role;
+        if (derived.isBlank()) derived = lane;
+        return derived.toUpperCase();
+    }
+
+    private record MatchInfo(String gameVersion, List<MatchParticipant> participants) {
+        private static final MatchInfo EMPTY = new MatchInfo("", List.of());
+    }
+}
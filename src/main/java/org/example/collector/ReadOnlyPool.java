@@ -0,0 +1,115 @@
+package org.example.collector;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+final class ReadOnlyPool {
+    private final Opener opener;
+    private final Supplier<Object> version;
+    private final int maxIdle;
+    private final Deque<Connection> idle = new ArrayDeque<>();
+    private Object openedVersion;
+
+    ReadOnlyPool(Opener opener, Supplier<Object> version, int maxIdle) {
+        this.opener = opener;
+        this.version = version;
+        this.maxIdle = maxIdle;
+    }
+
+    Connection borrow() throws SQLException {
+        Object current = version.get();
+        Connection conn;
+        synchronized (idle) {
+            if (!Objects.equals(current, openedVersion)) {
+                closeIdle();
+                openedVersion = current;
+            }
+            conn = idle.pollFirst();
+        }
+        if (conn == null) {
+            conn = opener.open();
+        }
+        return pooled(conn, current);
+    }
+
+    // Connections still borrowed are closed on return instead of going back to the pool.
+    void drain() {
+        synchronized (idle) {
+            closeIdle();
+            openedVersion = new Object();
+        }
+    }
+
+    private void release(Connection conn, Object borrowedVersion) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        }
+        synchronized (idle) {
+            if (Objects.equals(borrowedVersion, openedVersion) && idle.size() < maxIdle) {
+                idle.addFirst(conn);
+                return;
+            }
+        }
+        conn.close();
+    }
+
+    private void closeIdle() {
+        for (Connection conn : idle) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close read-only connection: " + e.getMessage());
+            }
+        }
+        idle.clear();
+    }
+
+    private Connection pooled(Connection conn, Object borrowedVersion) {
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed[0]) {
+                        closed[0] = true;
+                        release(conn, borrowedVersion);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed[0] || conn.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return conn.toString();
+                }
+                default -> {
+                    if (closed[0]) {
+                        throw new SQLException("Connection is closed");
+                    }
+                }
+            }
+            try {
+                return method.invoke(conn, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    interface Opener {
+        Connection open() throws SQLException;
+    }
+}
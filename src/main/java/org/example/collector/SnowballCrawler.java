@@ -0,0 +1,83 @@
+package org.example.collector;
+
+import com.merakianalytics.orianna.types.common.Queue;
+import org.example.metrics.Counter;
+import org.example.metrics.Gauge;
+import org.example.metrics.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class SnowballCrawler {
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+    private static final int PARTICIPANTS_PER_MATCH = 10;
+    private static final Gauge FRONTIER = Metrics.gauge("crawler_frontier_size", "PUUIDs waiting to be expanded by the snowball crawler.");
+    private static final Counter DISCOVERED = Metrics.counter("crawler_discovered_puuids_total", "New PUUIDs found in aggregated matches.");
+
+    private final MatchFetcher fetcher;
+    private final Queue queue;
+    private final int frontierCapacity;
+    private final int expansionBatch;
+    private final BloomFilter seenPuuids;
+    private final BloomFilter seenMatches;
+    private final ArrayDeque<MatchFetcher.Seed> frontier = new ArrayDeque<>();
+    private long discovered;
+
+    public SnowballCrawler(MatchFetcher fetcher, Queue queue, long expectedMatches, int frontierCapacity, int expansionBatch) {
+        this.fetcher = fetcher;
+        this.queue = queue;
+        this.frontierCapacity = Math.max(1, frontierCapacity);
+        this.expansionBatch = Math.max(1, expansionBatch);
+        this.seenPuuids = new BloomFilter(expectedMatches * PARTICIPANTS_PER_MATCH, FALSE_POSITIVE_RATE);
+        this.seenMatches = new BloomFilter(expectedMatches, FALSE_POSITIVE_RATE);
+    }
+
+    public void seed(Collection<String> puuids, Collection<String> matchIds) {
+        for (String puuid : puuids) {
+            seenPuuids.add(puuid);
+        }
+        for (String matchId : matchIds) {
+            seenMatches.add(matchId);
+        }
+    }
+
+    public void discover(String tier, MatchSummary match) {
+        for (MatchParticipant participant : match.participants()) {
+            String puuid = participant.puuid();
+            if (puuid == null || puuid.isBlank() || !seenPuuids.add(puuid)) continue;
+            discovered++;
+            DISCOVERED.inc();
+            if (frontier.size() < frontierCapacity) {
+                frontier.add(new MatchFetcher.Seed(puuid, tier));
+                FRONTIER.add(1);
+            }
+        }
+    }
+
+    public List<String> nextMatchIds(int limit) throws InterruptedException {
+        List<String> next = new ArrayList<>();
+        while (next.size() < limit && !frontier.isEmpty()) {
+            List<MatchFetcher.Seed> batch = new ArrayList<>(expansionBatch);
+            while (batch.size() < expansionBatch && !frontier.isEmpty()) {
+                batch.add(frontier.poll());
+                FRONTIER.add(-1);
+            }
+            next.addAll(fetcher.fetchMatchIdsForPuuids(batch, queue, limit - next.size(), seenMatches::add));
+        }
+        return next;
+    }
+
+    public int frontierSize() {
+        return frontier.size();
+    }
+
+    public long discoveredPuuids() {
+        return discovered;
+    }
+
+    public long filterBytes() {
+        return seenPuuids.sizeInBytes() + seenMatches.sizeInBytes();
+    }
+}
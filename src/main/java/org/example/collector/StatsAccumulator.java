@@ -0,0 +1,177 @@
+package org.example.collector;
+
+import org.example.collector.dao.StatsDao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StatsAccumulator {
+    private static final int ID_BITS = 21;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final int MAX_PARTITIONS = 1 << (Long.SIZE - 1 - 2 * ID_BITS);
+
+    private final Map<StatsPartition, Integer> partitionIndex = new HashMap<>();
+    private final List<StatsPartition> partitions = new ArrayList<>();
+    private final Map<String, Integer> roleIndex = new HashMap<>();
+    private final List<String> roleNames = new ArrayList<>();
+    private final CellTable champions = new CellTable();
+    private final CellTable roles = new CellTable();
+    private final CellTable synergy = new CellTable();
+    private final CellTable counters = new CellTable();
+
+    public void addChampion(StatsPartition partition, int championId, boolean win) {
+        champions.add(key(partition, championId, 0), win);
+    }
+
+    public void addRole(StatsPartition partition, int championId, String role) {
+        if (role == null || role.isBlank()) return;
+        Integer index = roleIndex.get(role);
+        if (index == null) {
+            index = roleNames.size();
+            roleIndex.put(role, index);
+            roleNames.add(role);
+        }
+        roles.add(key(partition, championId, index), false);
+    }
+
+    public void addSynergy(StatsPartition partition, int championId, int allyId, boolean win) {
+        synergy.add(key(partition, Math.min(championId, allyId), Math.max(championId, allyId)), win);
+    }
+
+    public void addCounter(StatsPartition partition, int championId, int enemyId, boolean win) {
+        counters.add(key(partition, championId, enemyId), win);
+    }
+
+    public void flush(StatsDao statsDao) throws SQLException {
+        for (int slot = 0; slot < champions.keys.length; slot++) {
+            long key = champions.keys[slot];
+            if (key == CellTable.EMPTY) continue;
+            statsDao.upsertChampionStats(partition(key), first(key), champions.wins[slot], champions.plays[slot]);
+        }
+        for (int slot = 0; slot < roles.keys.length; slot++) {
+            long key = roles.keys[slot];
+            if (key == CellTable.EMPTY) continue;
+            statsDao.upsertRoleStats(partition(key), first(key), roleNames.get(second(key)), roles.plays[slot]);
+        }
+        for (int slot = 0; slot < synergy.keys.length; slot++) {
+            long key = synergy.keys[slot];
+            if (key == CellTable.EMPTY) continue;
+            statsDao.upsertSynergyStats(partition(key), first(key), second(key), synergy.wins[slot], synergy.plays[slot]);
+        }
+        for (int slot = 0; slot < counters.keys.length; slot++) {
+            long key = counters.keys[slot];
+            if (key == CellTable.EMPTY) continue;
+            statsDao.upsertCounterStats(partition(key), first(key), second(key), counters.wins[slot], counters.plays[slot]);
+        }
+        champions.clear();
+        roles.clear();
+        synergy.clear();
+        counters.clear();
+    }
+
+    // Cells are keyed by (partition, a, b) packed into one long so every partition shares the same tables.
+    private long key(StatsPartition partition, int a, int b) {
+        if (a < 0 || b < 0 || a > ID_MASK || b > ID_MASK) {
+            throw new IllegalArgumentException("Champion id out of range: " + a + ", " + b);
+        }
+        Integer index = partitionIndex.get(partition);
+        if (index == null) {
+            if (partitions.size() >= MAX_PARTITIONS) {
+                throw new IllegalStateException("Too many stats partitions: " + partitions.size());
+            }
+            index = partitions.size();
+            partitionIndex.put(partition, index);
+            partitions.add(partition);
+        }
+        return ((long) index << (2 * ID_BITS)) | ((long) a << ID_BITS) | b;
+    }
+
+    private StatsPartition partition(long key) {
+        return partitions.get((int) (key >>> (2 * ID_BITS)));
+    }
+
+    private static int first(long key) {
+        return (int) ((key >>> ID_BITS) & ID_MASK);
+    }
+
+    private static int second(long key) {
+        return (int) (key & ID_MASK);
+    }
+
+    private static final class CellTable {
+        static final long EMPTY = -1L;
+        private static final int INITIAL_CAPACITY = 1024;
+
+        long[] keys;
+        int[] wins;
+        int[] plays;
+        int size;
+
+        CellTable() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        void add(long key, boolean win) {
+            int slot = slot(key);
+            if (keys[slot] == EMPTY) {
+                if ((size + 1) * 3 > keys.length * 2) {
+                    grow();
+                    slot = slot(key);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            plays[slot]++;
+            if (win) wins[slot]++;
+        }
+
+        void clear() {
+            if (size == 0) return;
+            Arrays.fill(keys, EMPTY);
+            Arrays.fill(wins, 0);
+            Arrays.fill(plays, 0);
+            size = 0;
+        }
+
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldWins = wins;
+            int[] oldPlays = plays;
+            allocate(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) continue;
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                wins[slot] = oldWins[i];
+                plays[slot] = oldPlays[i];
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            wins = new int[capacity];
+            plays = new int[capacity];
+        }
+
+        private static long mix(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return key;
+        }
+    }
+}
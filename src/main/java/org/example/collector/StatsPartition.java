@@ -0,0 +1,4 @@
+package org.example.collector;
+
+public record StatsPartition(String patch, String tier, String region) {
+}
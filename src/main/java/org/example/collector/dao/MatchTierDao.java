@@ -0,0 +1,46 @@
+package org.example.collector.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+public class MatchTierDao {
+    private final Connection connection;
+    private PreparedStatement tierQuery;
+
+    public MatchTierDao(Connection connection) {
+        this.connection = connection;
+    }
+
+    public String tierOf(String matchId) throws SQLException {
+        if (tierQuery == null) {
+            tierQuery = connection.prepareStatement("SELECT tier FROM match_tiers WHERE match_id = ?");
+        }
+        tierQuery.setString(1, matchId);
+        try (ResultSet rs = tierQuery.executeQuery()) {
+            return rs.next() ? rs.getString(1) : "";
+        }
+    }
+
+    public void close() throws SQLException {
+        if (tierQuery != null) {
+            tierQuery.close();
+            tierQuery = null;
+        }
+    }
+
+    public void saveAll(Map<String, String> tiers) throws SQLException {
+        if (tiers.isEmpty()) return;
+        String sql = "INSERT OR IGNORE INTO match_tiers (match_id, tier) VALUES (?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (Map.Entry<String, String> entry : tiers.entrySet()) {
+                pstmt.setString(1, entry.getKey());
+                pstmt.setString(2, entry.getValue());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+}
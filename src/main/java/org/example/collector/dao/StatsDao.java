@@ -1,66 +1,199 @@
 package org.example.collector.dao;
 
+import org.example.collector.StatsPartition;
+import org.example.metrics.Counter;
+import org.example.metrics.Gauge;
+import org.example.metrics.Histogram;
+import org.example.metrics.Metrics;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 public class StatsDao {
+    private static final String[] STATS_TABLES = {"champion_stats", "role_stats", "synergy_stats", "counter_stats"};
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final String CHAMPION_UPSERT = "INSERT INTO champion_stats (patch, tier, region, champion_id, wins, plays) VALUES (?, ?, ?, ?, ?, ?) " +
+                                                  "ON CONFLICT(patch, tier, region, champion_id) DO UPDATE SET " +
+                                                  "wins = wins + excluded.wins, " +
+                                                  "plays = plays + excluded.plays;";
+    private static final String ROLE_UPSERT = "INSERT INTO role_stats (patch, tier, region, champion_id, role, plays) VALUES (?, ?, ?, ?, ?, ?) " +
+                                              "ON CONFLICT(patch, tier, region, champion_id, role) DO UPDATE SET " +
+                                              "plays = plays + excluded.plays;";
+    private static final String SYNERGY_UPSERT = "INSERT INTO synergy_stats (patch, tier, region, champion_id, ally_id, wins, plays) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                                                 "ON CONFLICT(patch, tier, region, champion_id, ally_id) DO UPDATE SET " +
+                                                 "wins = wins + excluded.wins, " +
+                                                 "plays = plays + excluded.plays;";
+    private static final String COUNTER_UPSERT = "INSERT INTO counter_stats (patch, tier, region, champion_id, enemy_id, wins, plays) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                                                 "ON CONFLICT(patch, tier, region, champion_id, enemy_id) DO UPDATE SET " +
+                                                 "wins = wins + excluded.wins, " +
+                                                 "plays = plays + excluded.plays;";
+    private static final Histogram FLUSH_TIME = Metrics.latency("stats_dao_batch_flush_seconds", "Time to execute pending stats upsert batches.");
+    private static final Counter ROWS = Metrics.counter("stats_dao_rows_total", "Stats rows upserted, by table.", "table");
+    private static final Gauge ROWS_PER_SECOND = Metrics.gauge("stats_dao_rows_per_second", "Upsert throughput of the most recent batch flush.");
+
     private final Connection connection;
+    private final Batch championBatch = new Batch("champion_stats", CHAMPION_UPSERT);
+    private final Batch roleBatch = new Batch("role_stats", ROLE_UPSERT);
+    private final Batch synergyBatch = new Batch("synergy_stats", SYNERGY_UPSERT);
+    private final Batch counterBatch = new Batch("counter_stats", COUNTER_UPSERT);
+    private final Batch[] batches = {championBatch, roleBatch, synergyBatch, counterBatch};
+    private int batchSize;
+    private int pending;
 
     public StatsDao(Connection connection) {
+        this(connection, DEFAULT_BATCH_SIZE);
+    }
+
+    public StatsDao(Connection connection, int batchSize) {
         this.connection = connection;
+        this.batchSize = Math.max(1, batchSize);
     }
 
-    public void upsertChampionStats(int championId, boolean win) throws SQLException {
-        String sql = "INSERT INTO champion_stats (champion_id, wins, plays) VALUES (?, ?, 1) " +
-                     "ON CONFLICT(champion_id) DO UPDATE SET " +
-                     "wins = wins + excluded.wins, " +
-                     "plays = plays + 1;";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, championId);
-            pstmt.setInt(2, win ? 1 : 0);
-            pstmt.executeUpdate();
-        }
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
     }
 
-    public void upsertRoleStats(int championId, String role) throws SQLException {
+    public void upsertChampionStats(StatsPartition partition, int championId, int wins, int plays) throws SQLException {
+        PreparedStatement pstmt = championBatch.statement();
+        bindPartition(pstmt, partition);
+        pstmt.setInt(4, championId);
+        pstmt.setInt(5, wins);
+        pstmt.setInt(6, plays);
+        add(championBatch);
+    }
+
+    public void upsertRoleStats(StatsPartition partition, int championId, String role, int plays) throws SQLException {
         if (role == null || role.isBlank()) return;
-        String sql = "INSERT INTO role_stats (champion_id, role, plays) VALUES (?, ?, 1) " +
-                     "ON CONFLICT(champion_id, role) DO UPDATE SET " +
-                     "plays = plays + 1;";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, championId);
-            pstmt.setString(2, role);
-            pstmt.executeUpdate();
-        }
+        PreparedStatement pstmt = roleBatch.statement();
+        bindPartition(pstmt, partition);
+        pstmt.setInt(4, championId);
+        pstmt.setString(5, role);
+        pstmt.setInt(6, plays);
+        add(roleBatch);
     }
 
-    public void upsertSynergyStats(int championId, int allyId, boolean win) throws SQLException {
+    public void upsertSynergyStats(StatsPartition partition, int championId, int allyId, int wins, int plays) throws SQLException {
         int id1 = Math.min(championId, allyId);
         int id2 = Math.max(championId, allyId);
 
-        String sql = "INSERT INTO synergy_stats (champion_id, ally_id, wins, plays) VALUES (?, ?, ?, 1) " +
-                     "ON CONFLICT(champion_id, ally_id) DO UPDATE SET " +
-                     "wins = wins + excluded.wins, " +
-                     "plays = plays + 1;";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, id1);
-            pstmt.setInt(2, id2);
-            pstmt.setInt(3, win ? 1 : 0);
-            pstmt.executeUpdate();
+        PreparedStatement pstmt = synergyBatch.statement();
+        bindPartition(pstmt, partition);
+        pstmt.setInt(4, id1);
+        pstmt.setInt(5, id2);
+        pstmt.setInt(6, wins);
+        pstmt.setInt(7, plays);
+        add(synergyBatch);
+    }
+
+    public void upsertCounterStats(StatsPartition partition, int championId, int enemyId, int wins, int plays) throws SQLException {
+        PreparedStatement pstmt = counterBatch.statement();
+        bindPartition(pstmt, partition);
+        pstmt.setInt(4, championId);
+        pstmt.setInt(5, enemyId);
+        pstmt.setInt(6, wins);
+        pstmt.setInt(7, plays);
+        add(counterBatch);
+    }
+
+    public void flush() throws SQLException {
+        if (pending == 0) return;
+        long startNanos = System.nanoTime();
+        int rows = 0;
+        for (Batch batch : batches) {
+            rows += batch.execute();
+        }
+        pending = 0;
+        long elapsedNanos = System.nanoTime() - startNanos;
+        FLUSH_TIME.observeNanos(elapsedNanos);
+        ROWS_PER_SECOND.set(rows * 1_000_000_000L / Math.max(1, elapsedNanos));
+    }
+
+    public void close() throws SQLException {
+        flush();
+        for (Batch batch : batches) {
+            batch.close();
+        }
+    }
+
+    private void add(Batch batch) throws SQLException {
+        batch.add();
+        if (++pending >= batchSize) {
+            flush();
         }
     }
 
-    public void upsertCounterStats(int championId, int enemyId, boolean win) throws SQLException {
-        String sql = "INSERT INTO counter_stats (champion_id, enemy_id, wins, plays) VALUES (?, ?, ?, 1) " +
-                     "ON CONFLICT(champion_id, enemy_id) DO UPDATE SET " +
-                     "wins = wins + excluded.wins, " +
-                     "plays = plays + 1;";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, championId);
-            pstmt.setInt(2, enemyId);
-            pstmt.setInt(3, win ? 1 : 0);
-            pstmt.executeUpdate();
+    public List<String> patches() throws SQLException {
+        flush();
+        List<String> patches = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT DISTINCT patch FROM champion_stats")) {
+            while (rs.next()) {
+                patches.add(rs.getString(1));
+            }
+        }
+        return patches;
+    }
+
+    public int deletePatch(String patch) throws SQLException {
+        flush();
+        int deleted = 0;
+        for (String table : STATS_TABLES) {
+            try (PreparedStatement pstmt = connection.prepareStatement("DELETE FROM " + table + " WHERE patch = ?")) {
+                pstmt.setString(1, patch);
+                deleted += pstmt.executeUpdate();
+            }
+        }
+        return deleted;
+    }
+
+    private void bindPartition(PreparedStatement pstmt, StatsPartition partition) throws SQLException {
+        pstmt.setString(1, partition.patch());
+        pstmt.setString(2, partition.tier());
+        pstmt.setString(3, partition.region());
+    }
+
+    private final class Batch {
+        private final String table;
+        private final String sql;
+        private PreparedStatement statement;
+        private int rows;
+
+        Batch(String table, String sql) {
+            this.table = table;
+            this.sql = sql;
+        }
+
+        PreparedStatement statement() throws SQLException {
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+            }
+            return statement;
+        }
+
+        void add() throws SQLException {
+            statement.addBatch();
+            rows++;
+        }
+
+        int execute() throws SQLException {
+            if (rows == 0) return 0;
+            int executed = rows;
+            rows = 0;
+            statement.executeBatch();
+            ROWS.add(executed, table);
+            return executed;
+        }
+
+        void close() throws SQLException {
+            if (statement != null) {
+                statement.close();
+                statement = null;
+            }
         }
     }
-}
\ No newline at end of file
+}
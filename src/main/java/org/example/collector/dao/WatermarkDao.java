@@ -0,0 +1,43 @@
+package org.example.collector.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+public class WatermarkDao {
+    private final Connection connection;
+
+    public WatermarkDao(Connection connection) {
+        this.connection = connection;
+    }
+
+    public Map<String, Long> loadAll() throws SQLException {
+        Map<String, Long> watermarks = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT puuid, last_fetched FROM puuid_watermarks")) {
+            while (rs.next()) {
+                watermarks.put(rs.getString("puuid"), rs.getLong("last_fetched"));
+            }
+        }
+        return watermarks;
+    }
+
+    public void save(Collection<String> puuids, long epochSeconds) throws SQLException {
+        String sql = "INSERT INTO puuid_watermarks (puuid, last_fetched) VALUES (?, ?) " +
+                     "ON CONFLICT(puuid) DO UPDATE SET " +
+                     "last_fetched = MAX(last_fetched, excluded.last_fetched);";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (String puuid : puuids) {
+                pstmt.setString(1, puuid);
+                pstmt.setLong(2, epochSeconds);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+}
@@ -17,6 +17,7 @@ import javafx.stage.Stage;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.ThemeManager;
+import org.example.collector.DatabaseManager;
 import org.example.service.lcu.ChampSelectSnapshot;
 import org.example.service.lcu.LeagueClientChampSelectWatcher;
 import org.example.util.AppPaths;
@@ -524,6 +525,7 @@ public class MainController {
                     out.write(buffer, 0, read);
                 }
             }
+            DatabaseManager.closeIdleReaders();
             Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
             DebugLog.log("[Update] Snapshot download complete.");
             Platform.runLater(() -> {
@@ -0,0 +1,27 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Counter extends MetricFamily<LongAdder> {
+    Counter(String name, String help, String... labelNames) {
+        super(name, help, labelNames, LongAdder::new);
+    }
+
+    public void inc(String... labelValues) {
+        child(labelValues).increment();
+    }
+
+    public void add(long amount, String... labelValues) {
+        child(labelValues).add(amount);
+    }
+
+    @Override
+    String type() {
+        return "counter";
+    }
+
+    @Override
+    void render(StringBuilder out, String labels, LongAdder child) {
+        out.append(name()).append(braces(labels)).append(' ').append(child.sum()).append('\n');
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class Gauge extends MetricFamily<AtomicLong> {
+    Gauge(String name, String help, String... labelNames) {
+        super(name, help, labelNames, AtomicLong::new);
+    }
+
+    public void set(long value, String... labelValues) {
+        child(labelValues).set(value);
+    }
+
+    public void add(long delta, String... labelValues) {
+        child(labelValues).addAndGet(delta);
+    }
+
+    @Override
+    String type() {
+        return "gauge";
+    }
+
+    @Override
+    void render(StringBuilder out, String labels, AtomicLong child) {
+        out.append(name()).append(braces(labels)).append(' ').append(child.get()).append('\n');
+    }
+}
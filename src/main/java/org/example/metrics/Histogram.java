@@ -0,0 +1,59 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Histogram extends MetricFamily<Histogram.Buckets> {
+    static final double[] LATENCY_SECONDS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120};
+
+    private final double[] bounds;
+
+    Histogram(String name, String help, double[] bounds, String... labelNames) {
+        super(name, help, labelNames, () -> new Buckets(bounds.length));
+        this.bounds = bounds.clone();
+    }
+
+    public void observe(double value, String... labelValues) {
+        Buckets buckets = child(labelValues);
+        int index = 0;
+        while (index < bounds.length && value > bounds[index]) {
+            index++;
+        }
+        buckets.counts[index].increment();
+        buckets.sum.add(value);
+    }
+
+    public void observeNanos(long nanos, String... labelValues) {
+        observe(nanos / 1_000_000_000d, labelValues);
+    }
+
+    @Override
+    String type() {
+        return "histogram";
+    }
+
+    @Override
+    void render(StringBuilder out, String labels, Buckets child) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i <= bounds.length; i++) {
+            cumulative += child.counts[i].sum();
+            String le = i < bounds.length ? format(bounds[i]) : "+Inf";
+            out.append(name()).append("_bucket{").append(prefix).append("le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+        }
+        out.append(name()).append("_sum").append(braces(labels)).append(' ').append(format(child.sum.sum())).append('\n');
+        out.append(name()).append("_count").append(braces(labels)).append(' ').append(cumulative).append('\n');
+    }
+
+    static final class Buckets {
+        private final LongAdder[] counts;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Buckets(int bounds) {
+            counts = new LongAdder[bounds + 1];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+abstract class MetricFamily<T> {
+    private final String name;
+    private final String help;
+    private final String[] labelNames;
+    private final Map<List<String>, T> children = new ConcurrentHashMap<>();
+    private final Supplier<T> factory;
+
+    MetricFamily(String name, String help, String[] labelNames, Supplier<T> factory) {
+        this.name = name;
+        this.help = help;
+        this.labelNames = labelNames.clone();
+        this.factory = factory;
+    }
+
+    String name() {
+        return name;
+    }
+
+    abstract String type();
+
+    abstract void render(StringBuilder out, String labels, T child);
+
+    T child(String... labelValues) {
+        if (labelValues.length != labelNames.length) {
+            throw new IllegalArgumentException(name + " expects labels " + Arrays.toString(labelNames));
+        }
+        List<String> key = List.of(labelValues);
+        T child = children.get(key);
+        return child != null ? child : children.computeIfAbsent(key, ignored -> factory.get());
+    }
+
+    void render(StringBuilder out) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type()).append('\n');
+        children.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey((a, b) -> String.join("\u0000", a).compareTo(String.join("\u0000", b))))
+                .forEach(entry -> render(out, labels(entry.getKey()), entry.getValue()));
+    }
+
+    private String labels(List<String> values) {
+        if (values.isEmpty()) return "";
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) labels.append(',');
+            labels.append(labelNames[i]).append("=\"").append(escape(values.get(i))).append('"');
+        }
+        return labels.toString();
+    }
+
+    static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public final class Metrics {
+    private static final Map<String, MetricFamily<?>> FAMILIES = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name, String help, String... labelNames) {
+        return register(new Counter(name, help, labelNames));
+    }
+
+    public static Gauge gauge(String name, String help, String... labelNames) {
+        return register(new Gauge(name, help, labelNames));
+    }
+
+    public static Histogram latency(String name, String help, String... labelNames) {
+        return histogram(name, help, Histogram.LATENCY_SECONDS, labelNames);
+    }
+
+    public static Histogram histogram(String name, String help, double[] bounds, String... labelNames) {
+        return register(new Histogram(name, help, bounds, labelNames));
+    }
+
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (MetricFamily<?> family : FAMILIES.values()) {
+            family.render(out);
+        }
+        return out.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends MetricFamily<?>> T register(T family) {
+        MetricFamily<?> existing = FAMILIES.putIfAbsent(family.name(), family);
+        if (existing == null) {
+            return family;
+        }
+        if (existing.getClass() != family.getClass()) {
+            throw new IllegalStateException("Metric " + family.name() + " is already registered as " + existing.type());
+        }
+        return (T) existing;
+    }
+}
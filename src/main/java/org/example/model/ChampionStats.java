@@ -74,6 +74,10 @@ public class ChampionStats {
 
     @JsonIgnore
     public List<Role> allRoles() {
+        return rankRoles(roleCounts, games);
+    }
+
+    public static List<Role> rankRoles(Map<String, Integer> roleCounts, int games) {
         if (roleCounts == null || roleCounts.isEmpty()) {
             return List.of(Role.UNKNOWN);
         }
@@ -106,7 +110,7 @@ public class ChampionStats {
         return roles.isEmpty() ? List.of(Role.UNKNOWN) : roles;
     }
 
-    private Role mapRole(String lane) {
+    private static Role mapRole(String lane) {
         if (lane == null) return Role.UNKNOWN;
         return switch (lane.toUpperCase()) {
             case "TOP" -> Role.TOP;
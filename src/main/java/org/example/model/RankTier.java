@@ -0,0 +1,36 @@
+package org.example.model;
+
+public enum RankTier {
+    ALL("All ranks", ""),
+    CHALLENGER("Challenger", "CHALLENGER"),
+    GRANDMASTER("Grandmaster", "GRANDMASTER"),
+    MASTER("Master", "MASTER"),
+    DIAMOND("Diamond", "DIAMOND"),
+    EMERALD("Emerald", "EMERALD");
+
+    private final String label;
+    private final String key;
+
+    RankTier(String label, String key) {
+        this.label = label;
+        this.key = key;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public static RankTier fromKey(String key) {
+        if (key == null || key.isBlank()) return ALL;
+        for (RankTier tier : values()) {
+            if (tier.key.equalsIgnoreCase(key.trim())) {
+                return tier;
+            }
+        }
+        return ALL;
+    }
+}
@@ -3,6 +3,7 @@ package org.example.service;
 import org.example.model.ChampionStats;
 import org.example.model.ChampionSummary;
 import org.example.model.PairWinRate;
+import org.example.model.RankTier;
 import org.example.model.RecommendationContext;
 import org.example.model.Role;
 import org.example.model.SlotSelection;
@@ -28,6 +29,7 @@ public class MockStatsService implements StatsService {
     private static final double COUNTER_WEIGHT = 0.25;
     private static final Map<String, Double> WIN_RATES = initWinRates();
     private final Map<String, ChampionStats> cachedStats = new LinkedHashMap<>();
+    private RankTier rankTier = RankTier.ALL;
 
     @Override
     public List<ChampionSummary> fetchRecommended(RecommendationContext context) {
@@ -126,6 +128,16 @@ public class MockStatsService implements StatsService {
         ));
     }
 
+    @Override
+    public RankTier rankTier() {
+        return rankTier;
+    }
+
+    @Override
+    public void setRankTier(RankTier rankTier) {
+        this.rankTier = rankTier == null ? RankTier.ALL : rankTier;
+    }
+
     private ChampionStats generateStats(String championId) {
         ChampionStats stats = new ChampionStats();
         double baseWr = WIN_RATES.getOrDefault(championId, 0.5);
@@ -6,13 +6,16 @@ import com.merakianalytics.orianna.types.common.Platform;
 import org.example.model.ChampionStats;
 import org.example.model.ChampionSummary;
 import org.example.model.PairWinRate;
+import org.example.model.RankTier;
 import org.example.model.RecommendationContext;
 import org.example.model.Role;
 import org.example.model.SlotSelection;
-import org.example.model.StatsSnapshot;
 import org.example.model.Tier;
 import org.example.model.WinPlay;
+import org.example.service.db.BinarySnapshot;
 import org.example.service.db.SnapshotRebuilder;
+import org.example.service.db.StatsView;
+import java.io.IOException;
 import java.sql.SQLException;
 
 import org.example.util.AppPaths;
@@ -20,14 +23,19 @@ import org.example.util.ChampionIconResolver;
 import org.example.util.ChampionNames;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -37,11 +45,23 @@ public class RiotStatsService implements StatsService {
     private static final double COUNTER_WEIGHT = 0.25;
     private static final int MIN_PAIR_GAMES = 5;
     private static final int MIN_TOTAL_GAMES = 30;
+    private static final String PATCH_WINDOW_ENV = "STATS_PATCH_WINDOW";
+    private static final Executor WARM_UP = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final Platform platform;
     private final StatsService fallback = new MockStatsService();
     private final File snapshotFile = AppPaths.snapshotPath().toFile();
-    private StatsSnapshot cachedSnapshot;
+    private final Path binaryBase = AppPaths.binarySnapshotPath();
+    private final Map<RankTier, StatsView> cachedViews = new EnumMap<>(RankTier.class);
     private long cachedStamp = -1L;
+    private Path cachedBinaryPath;
+    private long cachedBinaryStamp = -1L;
+    private BinarySnapshot binarySnapshot;
+    private RankTier rankTier = RankTier.ALL;
+    private final int patchWindow = parsePatchWindow();
 
     public RiotStatsService(String apiKey, String platformTag) {
         this.platform = parsePlatform(platformTag);
@@ -54,30 +74,30 @@ public class RiotStatsService implements StatsService {
     @Override
     public List<ChampionSummary> fetchRecommended(RecommendationContext context) {
         try {
-            StatsSnapshot snapshot = snapshot();
-            if (snapshot == null || snapshot.champions() == null || snapshot.champions().isEmpty()) {
+            StatsView view = view();
+            if (view == null || view.isEmpty()) {
                 return fallback.fetchRecommended(context);
             }
             List<ChampionSummary> summaries = new ArrayList<>();
             Set<String> excluded = excludedChampions(context);
             int limit = context == null ? 20 : context.limit();
 
-            for (var entry : snapshot.champions().entrySet()) {
-                String champion = ChampionNames.canonicalName(entry.getKey());
+            for (String name : view.champions()) {
+                String champion = ChampionNames.canonicalName(name);
                 if (excluded.contains(champion)) continue;
-                ChampionStats stats = entry.getValue();
-                if (stats.games() < MIN_TOTAL_GAMES) continue;
+                if (view.games(name) < MIN_TOTAL_GAMES) continue;
 
+                List<Role> roles = view.roles(name);
                 if (context != null && context.targetRole() != Role.UNKNOWN) {
-                    if (!stats.allRoles().contains(context.targetRole())) {
+                    if (!roles.contains(context.targetRole())) {
                         continue;
                     }
                 }
 
-                double opRaw = stats.winRate();
+                double opRaw = view.winRate(name);
                 double op = clamp(opRaw);
-                PairMetrics synergy = synergyMetrics(stats, context);
-                PairMetrics counter = counterMetrics(stats, context);
+                PairMetrics synergy = synergyMetrics(view, name, context);
+                PairMetrics counter = counterMetrics(view, name, context);
                 double synWr = synergy.winRate();
                 double coWr = counter.winRate();
                 Tier opTier = Tier.fromWinRate(op);
@@ -85,7 +105,7 @@ public class RiotStatsService implements StatsService {
                 Tier coTier = Tier.fromWinRate(coWr, true);
                 double score = weightedScore(opTier, synTier, coTier);
 
-                Role preferredRole = stats.primaryRole();
+                Role preferredRole = roles.get(0);
                 summaries.add(new ChampionSummary(
                         champion,
                         ChampionNames.displayName(champion),
@@ -95,7 +115,7 @@ public class RiotStatsService implements StatsService {
                         score,
                         ChampionIconResolver.load(champion),
                         preferredRole,
-                        stats.allRoles(),
+                        roles,
                         opRaw,
                         synWr,
                         coWr,
@@ -114,20 +134,20 @@ public class RiotStatsService implements StatsService {
     @Override
     public Optional<ChampionStats> findChampionStats(String championId) {
         String canonical = ChampionNames.canonicalName(championId);
-        StatsSnapshot snapshot = snapshot();
-        if (snapshot == null || snapshot.champions() == null) {
+        StatsView view = view();
+        if (view == null) {
             return Optional.empty();
         }
-        return Optional.ofNullable(snapshot.champions().get(canonical));
+        return Optional.ofNullable(view.stats(canonical));
     }
 
     @Override
     public Map<String, ChampionStats> allChampionStats() {
-        StatsSnapshot snapshot = snapshot();
-        if (snapshot == null || snapshot.champions() == null || snapshot.champions().isEmpty()) {
+        StatsView view = view();
+        if (view == null || view.isEmpty()) {
             return Map.of();
         }
-        return Collections.unmodifiableMap(snapshot.champions());
+        return view.asMap();
     }
 
     @Override
@@ -137,20 +157,20 @@ public class RiotStatsService implements StatsService {
             return Optional.empty();
         }
 
-        StatsSnapshot snapshot = snapshot();
-        if (snapshot == null || snapshot.champions() == null || !snapshot.champions().containsKey(canonicalId)) {
+        StatsView view = view();
+        if (view == null || !view.contains(canonicalId)) {
             return Optional.empty();
         }
 
-        ChampionStats stats = snapshot.champions().get(canonicalId);
-        if (stats.games() < MIN_TOTAL_GAMES) {
+        if (view.games(canonicalId) < MIN_TOTAL_GAMES) {
             return Optional.empty();
         }
 
-        double opRaw = stats.winRate();
+        List<Role> roles = view.roles(canonicalId);
+        double opRaw = view.winRate(canonicalId);
         double op = clamp(opRaw);
-        PairMetrics synergy = synergyMetrics(stats, context);
-        PairMetrics counter = counterMetrics(stats, context);
+        PairMetrics synergy = synergyMetrics(view, canonicalId, context);
+        PairMetrics counter = counterMetrics(view, canonicalId, context);
         double synWr = synergy.winRate();
         double coWr = counter.winRate();
         Tier opTier = Tier.fromWinRate(op);
@@ -158,7 +178,7 @@ public class RiotStatsService implements StatsService {
         Tier coTier = Tier.fromWinRate(coWr, true);
         double score = weightedScore(opTier, synTier, coTier);
 
-        Role preferredRole = stats.primaryRole();
+        Role preferredRole = roles.get(0);
         return Optional.of(new ChampionSummary(
                 canonicalId,
                 ChampionNames.displayName(canonicalId),
@@ -168,7 +188,7 @@ public class RiotStatsService implements StatsService {
                 score,
                 ChampionIconResolver.load(canonicalId),
                 preferredRole,
-                stats.allRoles(),
+                roles,
                 opRaw,
                 synWr,
                 coWr,
@@ -179,19 +199,71 @@ public class RiotStatsService implements StatsService {
 
 
 
-    private StatsSnapshot snapshot() {
+    @Override
+    public RankTier rankTier() {
+        return rankTier;
+    }
+
+    @Override
+    public void setRankTier(RankTier rankTier) {
+        this.rankTier = rankTier == null ? RankTier.ALL : rankTier;
+    }
+
+    private StatsView view() {
         long modified = snapshotFile.exists() ? snapshotFile.lastModified() : -1L;
-        if (cachedSnapshot != null && cachedStamp == modified) {
-            return cachedSnapshot;
+        Path binaryPath = latestBinarySnapshot();
+        long binaryModified = binaryPath == null ? -1L : binaryPath.toFile().lastModified();
+        if (cachedStamp != modified || !Objects.equals(cachedBinaryPath, binaryPath) || cachedBinaryStamp != binaryModified) {
+            // Drop every reference to the old mapping before opening the next version; the OS only unmaps it once
+            // the buffer has been garbage collected.
+            cachedViews.clear();
+            binarySnapshot = null;
+            cachedStamp = modified;
+            cachedBinaryPath = binaryPath;
+            cachedBinaryStamp = binaryModified;
+            binarySnapshot = binaryModified >= 0 && binaryModified >= modified ? openBinarySnapshot(binaryPath) : null;
+        }
+        RankTier tier = rankTier;
+        StatsView cached = cachedViews.get(tier);
+        if (cached != null) {
+            return cached;
+        }
+        if (binarySnapshot != null) {
+            cached = binarySnapshot.view(tier);
         }
+        if (cached == null) {
+            try {
+                cached = StatsView.of(new SnapshotRebuilder().rebuildLazySnapshot(tier, patchWindow, WARM_UP));
+            } catch (SQLException e) {
+                System.err.println("Failed to load stats from database: " + e.getMessage());
+                return null;
+            }
+        }
+        cachedViews.put(tier, cached);
+        return cached;
+    }
+
+    private Path latestBinarySnapshot() {
         try {
-            cachedSnapshot = new SnapshotRebuilder().rebuildSnapshot();
-            cachedStamp = modified;
-        } catch (SQLException e) {
-            System.err.println("Failed to load stats from database: " + e.getMessage());
-            cachedSnapshot = null;
+            return BinarySnapshot.latest(binaryBase);
+        } catch (IOException e) {
+            System.err.println("Failed to list binary snapshots: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private BinarySnapshot openBinarySnapshot(Path path) {
+        try {
+            BinarySnapshot snapshot = BinarySnapshot.open(path);
+            if (snapshot.patchWindow() != patchWindow) {
+                System.out.println("Ignoring binary snapshot built for a " + snapshot.patchWindow() + "-patch window; using the database.");
+                return null;
+            }
+            return snapshot;
+        } catch (IOException e) {
+            System.err.println("Failed to map binary snapshot: " + e.getMessage());
+            return null;
         }
-        return cachedSnapshot;
     }
 
     private Set<String> excludedChampions(RecommendationContext context) {
@@ -210,23 +282,23 @@ public class RiotStatsService implements StatsService {
         }
     }
 
-    private PairMetrics synergyMetrics(ChampionStats stats, RecommendationContext context) {
+    private PairMetrics synergyMetrics(StatsView view, String champion, RecommendationContext context) {
         if (context == null) return PairMetrics.EMPTY;
         List<SlotSelection> group = context.allyPerspective()
                 ? context.allySelections()
                 : context.enemySelections();
-        return pairMetrics(stats.synergy(), canonicalize(group));
+        return pairMetrics(other -> view.synergy(champion, other), canonicalize(group));
     }
 
-    private PairMetrics counterMetrics(ChampionStats stats, RecommendationContext context) {
+    private PairMetrics counterMetrics(StatsView view, String champion, RecommendationContext context) {
         if (context == null) return PairMetrics.EMPTY;
         List<SlotSelection> group = context.allyPerspective()
                 ? context.enemySelections()
                 : context.allySelections();
-        return pairMetrics(stats.counters(), canonicalize(group));
+        return pairMetrics(other -> view.counter(champion, other), canonicalize(group));
     }
 
-    private PairMetrics pairMetrics(Map<String, WinPlay> data, List<String> names) {
+    private PairMetrics pairMetrics(Function<String, WinPlay> data, List<String> names) {
         if (names.isEmpty()) {
             return PairMetrics.EMPTY;
         }
@@ -234,7 +306,7 @@ public class RiotStatsService implements StatsService {
         int count = 0;
         List<PairWinRate> entries = new ArrayList<>();
         for (String name : names) {
-            WinPlay wp = data.get(name);
+            WinPlay wp = data.apply(name);
             if (wp != null && wp.getGames() >= MIN_PAIR_GAMES) {
                 double wr = wp.winRate();
                 total += wr;
@@ -279,6 +351,14 @@ public class RiotStatsService implements StatsService {
         return base * weight;
     }
 
+    private static int parsePatchWindow() {
+        try {
+            return Integer.parseInt(System.getenv().getOrDefault(PATCH_WINDOW_ENV, "2").trim());
+        } catch (NumberFormatException e) {
+            return 2;
+        }
+    }
+
     private Platform parsePlatform(String tag) {
         if (tag == null || tag.isBlank()) return Platform.EUROPE_WEST;
         String normalized = tag.trim().toUpperCase().replace("-", "_");
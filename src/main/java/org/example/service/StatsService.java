@@ -2,6 +2,7 @@ package org.example.service;
 
 import org.example.model.ChampionStats;
 import org.example.model.ChampionSummary;
+import org.example.model.RankTier;
 import org.example.model.RecommendationContext;
 
 import java.util.List;
@@ -17,5 +18,9 @@ public interface StatsService {
 
     Optional<ChampionSummary> fetchChampionSummary(String championId, RecommendationContext context);
 
+    RankTier rankTier();
+
+    void setRankTier(RankTier rankTier);
+
 
 }
@@ -0,0 +1,449 @@
+package org.example.service.db;
+
+import org.example.model.ChampionStats;
+import org.example.model.RankTier;
+import org.example.model.Role;
+import org.example.model.StatsSnapshot;
+import org.example.model.WinPlay;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x4D4A5342;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int CELL_BYTES = 8;
+
+    private final ByteBuffer buffer;
+    private final int patchWindow;
+    private final List<String> champions;
+    private final Map<String, Integer> championIndex;
+    private final String[] roles;
+    private final Map<RankTier, Integer> sections;
+
+    private BinarySnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary stats snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary snapshot version " + version);
+            }
+            patchWindow = buffer.getInt();
+            int championCount = buffer.getInt();
+            int roleCount = buffer.getInt();
+            int tierCount = buffer.getInt();
+            String[] names = new String[championCount];
+            championIndex = new HashMap<>(championCount * 2);
+            for (int i = 0; i < championCount; i++) {
+                names[i] = readString(buffer);
+                championIndex.put(names[i], i);
+            }
+            champions = List.of(names);
+            roles = new String[roleCount];
+            for (int i = 0; i < roleCount; i++) {
+                roles[i] = readString(buffer);
+            }
+            sections = new EnumMap<>(RankTier.class);
+            long sectionBytes = sectionBytes(championCount, roleCount);
+            for (int i = 0; i < tierCount; i++) {
+                RankTier tier = RankTier.valueOf(readString(buffer));
+                int offset = buffer.getInt();
+                if (offset < buffer.position() || offset + sectionBytes > buffer.capacity()) {
+                    throw new IOException("Binary snapshot section out of bounds");
+                }
+                sections.put(tier, offset);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated binary snapshot", e);
+        }
+    }
+
+    public static BinarySnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            return new BinarySnapshot(buffer);
+        }
+    }
+
+    // The reader keeps its mapping until the buffer is garbage collected, and Windows refuses to replace or delete a
+    // mapped file, so every publish writes a new version next to base and only prunes versions nobody maps any more.
+    public static Path publish(Path base, int patchWindow, Map<RankTier, StatsSnapshot> snapshots) throws IOException {
+        Path current = latest(base);
+        long version = Math.max(System.currentTimeMillis(), current == null ? 0 : version(base, current) + 1);
+        Path target = base.resolveSibling(stem(base) + "-" + version + extension(base));
+        write(target, patchWindow, snapshots);
+        for (Path stale : versions(base)) {
+            if (stale.equals(target)) continue;
+            try {
+                Files.deleteIfExists(stale);
+            } catch (IOException e) {
+                System.out.println("Keeping binary snapshot " + stale.getFileName() + " while it is in use: " + e.getMessage());
+            }
+        }
+        return target;
+    }
+
+    public static Path latest(Path base) throws IOException {
+        Path latest = null;
+        for (Path candidate : versions(base)) {
+            if (latest == null || version(base, candidate) > version(base, latest)) {
+                latest = candidate;
+            }
+        }
+        return latest;
+    }
+
+    private static List<Path> versions(Path base) throws IOException {
+        List<Path> versions = new ArrayList<>();
+        if (Files.exists(base)) {
+            versions.add(base);
+        }
+        Path dir = base.toAbsolutePath().getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return versions;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, stem(base) + "-*" + extension(base))) {
+            for (Path entry : entries) {
+                if (version(base, entry) > 0) {
+                    versions.add(entry);
+                }
+            }
+        }
+        return versions;
+    }
+
+    private static long version(Path base, Path path) {
+        String name = path.getFileName().toString();
+        String prefix = stem(base) + "-";
+        if (!name.startsWith(prefix) || !name.endsWith(extension(base))) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - extension(base).length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String stem(Path base) {
+        String name = base.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    private static String extension(Path base) {
+        String name = base.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot);
+    }
+
+    public static void write(Path target, int patchWindow, Map<RankTier, StatsSnapshot> snapshots) throws IOException {
+        Set<String> nameSet = new TreeSet<>();
+        Set<String> roleSet = new TreeSet<>();
+        for (StatsSnapshot snapshot : snapshots.values()) {
+            for (var entry : snapshot.champions().entrySet()) {
+                nameSet.add(entry.getKey());
+                roleSet.addAll(entry.getValue().roleCounts().keySet());
+            }
+        }
+        String[] names = nameSet.toArray(String[]::new);
+        String[] roleNames = roleSet.toArray(String[]::new);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            index.put(names[i], i);
+        }
+        Map<String, Integer> roleIndex = new HashMap<>();
+        for (int i = 0; i < roleNames.length; i++) {
+            roleIndex.put(roleNames[i], i);
+        }
+
+        int header = HEADER_BYTES + encodedSize(names) + encodedSize(roleNames);
+        for (RankTier tier : snapshots.keySet()) {
+            header += encodedSize(tier.name()) + Integer.BYTES;
+        }
+        header = (header + CELL_BYTES - 1) / CELL_BYTES * CELL_BYTES;
+        long sectionBytes = sectionBytes(names.length, roleNames.length);
+        long total = header + sectionBytes * snapshots.size();
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Binary snapshot too large: " + total + " bytes");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(patchWindow)
+                .putInt(names.length).putInt(roleNames.length).putInt(snapshots.size());
+        for (String name : names) {
+            writeString(out, name);
+        }
+        for (String role : roleNames) {
+            writeString(out, role);
+        }
+        int offset = header;
+        for (RankTier tier : snapshots.keySet()) {
+            writeString(out, tier.name());
+            out.putInt(offset);
+            offset += (int) sectionBytes;
+        }
+
+        int n = names.length;
+        int r = roleNames.length;
+        int base = header;
+        for (StatsSnapshot snapshot : snapshots.values()) {
+            int roleBase = base + n * CELL_BYTES;
+            int synergyBase = roleBase + n * r * Integer.BYTES;
+            int counterBase = synergyBase + n * n * CELL_BYTES;
+            for (var entry : snapshot.champions().entrySet()) {
+                int i = index.get(entry.getKey());
+                ChampionStats stats = entry.getValue();
+                out.putInt(base + i * CELL_BYTES, stats.wins());
+                out.putInt(base + i * CELL_BYTES + Integer.BYTES, stats.games());
+                for (var role : stats.roleCounts().entrySet()) {
+                    out.putInt(roleBase + (i * r + roleIndex.get(role.getKey())) * Integer.BYTES, role.getValue());
+                }
+                putPairs(out, synergyBase, n, i, index, stats.synergy());
+                putPairs(out, counterBase, n, i, index, stats.counters());
+            }
+            base += (int) sectionBytes;
+        }
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, out.array());
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    public int patchWindow() {
+        return patchWindow;
+    }
+
+    public StatsView view(RankTier tier) {
+        Integer offset = sections.get(tier);
+        return offset == null ? null : new TierView(offset);
+    }
+
+    private static long sectionBytes(int championCount, int roleCount) {
+        long n = championCount;
+        return n * CELL_BYTES + n * roleCount * Integer.BYTES + 2 * n * n * CELL_BYTES;
+    }
+
+    private static void putPairs(ByteBuffer out, int base, int n, int row, Map<String, Integer> index, Map<String, WinPlay> pairs) {
+        for (var pair : pairs.entrySet()) {
+            Integer column = index.get(pair.getKey());
+            if (column == null) continue;
+            int cell = base + (row * n + column) * CELL_BYTES;
+            out.putInt(cell, pair.getValue().wins());
+            out.putInt(cell + Integer.BYTES, pair.getValue().games());
+        }
+    }
+
+    private static int encodedSize(String[] values) {
+        int size = 0;
+        for (String value : values) {
+            size += encodedSize(value);
+        }
+        return size;
+    }
+
+    private static int encodedSize(String value) {
+        return Short.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void writeString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private final class TierView implements StatsView {
+        private final int base;
+        private final int roleBase;
+        private final int synergyBase;
+        private final int counterBase;
+
+        TierView(int base) {
+            int n = champions.size();
+            this.base = base;
+            this.roleBase = base + n * CELL_BYTES;
+            this.synergyBase = roleBase + n * roles.length * Integer.BYTES;
+            this.counterBase = synergyBase + n * n * CELL_BYTES;
+        }
+
+        @Override
+        public Collection<String> champions() {
+            return champions;
+        }
+
+        @Override
+        public boolean contains(String champion) {
+            return championIndex.containsKey(champion);
+        }
+
+        @Override
+        public int wins(String champion) {
+            int i = index(champion);
+            return i < 0 ? 0 : buffer.getInt(base + i * CELL_BYTES);
+        }
+
+        @Override
+        public int games(String champion) {
+            int i = index(champion);
+            return i < 0 ? 0 : buffer.getInt(base + i * CELL_BYTES + Integer.BYTES);
+        }
+
+        @Override
+        public List<Role> roles(String champion) {
+            int i = index(champion);
+            return i < 0 ? List.of(Role.UNKNOWN) : ChampionStats.rankRoles(roleCounts(i), buffer.getInt(base + i * CELL_BYTES + Integer.BYTES));
+        }
+
+        @Override
+        public WinPlay synergy(String champion, String ally) {
+            return pair(synergyBase, index(champion), index(ally));
+        }
+
+        @Override
+        public WinPlay counter(String champion, String enemy) {
+            return pair(counterBase, index(champion), index(enemy));
+        }
+
+        @Override
+        public ChampionStats stats(String champion) {
+            int i = index(champion);
+            return i < 0 ? null : stats(i);
+        }
+
+        @Override
+        public Map<String, ChampionStats> asMap() {
+            return new LazyStatsMap(this);
+        }
+
+        private ChampionStats stats(int i) {
+            return new ChampionStats(
+                    buffer.getInt(base + i * CELL_BYTES),
+                    buffer.getInt(base + i * CELL_BYTES + Integer.BYTES),
+                    roleCounts(i),
+                    row(synergyBase, i),
+                    row(counterBase, i));
+        }
+
+        private Map<String, Integer> roleCounts(int i) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (int r = 0; r < roles.length; r++) {
+                int plays = buffer.getInt(roleBase + (i * roles.length + r) * Integer.BYTES);
+                if (plays > 0) {
+                    counts.put(roles[r], plays);
+                }
+            }
+            return counts;
+        }
+
+        private Map<String, WinPlay> row(int matrixBase, int i) {
+            Map<String, WinPlay> pairs = new HashMap<>();
+            for (int j = 0; j < champions.size(); j++) {
+                WinPlay pair = pair(matrixBase, i, j);
+                if (pair != null) {
+                    pairs.put(champions.get(j), pair);
+                }
+            }
+            return pairs;
+        }
+
+        private WinPlay pair(int matrixBase, int i, int j) {
+            if (i < 0 || j < 0) return null;
+            int cell = matrixBase + (i * champions.size() + j) * CELL_BYTES;
+            int plays = buffer.getInt(cell + Integer.BYTES);
+            return plays == 0 ? null : new WinPlay(buffer.getInt(cell), plays);
+        }
+
+        private int index(String champion) {
+            Integer i = champion == null ? null : championIndex.get(champion);
+            return i == null ? -1 : i;
+        }
+    }
+
+    private final class LazyStatsMap extends AbstractMap<String, ChampionStats> {
+        private final TierView view;
+
+        LazyStatsMap(TierView view) {
+            this.view = view;
+        }
+
+        @Override
+        public ChampionStats get(Object key) {
+            return key instanceof String name ? view.stats(name) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String name && championIndex.containsKey(name);
+        }
+
+        @Override
+        public int size() {
+            return champions.size();
+        }
+
+        @Override
+        public Set<Entry<String, ChampionStats>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, ChampionStats>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < champions.size();
+                        }
+
+                        @Override
+                        public Entry<String, ChampionStats> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int i = next++;
+                            return new SimpleImmutableEntry<>(champions.get(i), view.stats(i));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return champions.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.service.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface ConnectionSource {
+    Connection open() throws SQLException;
+}
@@ -0,0 +1,75 @@
+package org.example.service.db;
+
+import org.example.model.WinPlay;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+final class LazyPairMap extends AbstractMap<String, WinPlay> {
+    private final String champion;
+    private final PairLoader loader;
+    private volatile Map<String, WinPlay> pairs;
+
+    LazyPairMap(String champion, PairLoader loader) {
+        this.champion = champion;
+        this.loader = loader;
+    }
+
+    boolean isLoaded() {
+        return pairs != null;
+    }
+
+    synchronized void fill(Map<String, WinPlay> loaded) {
+        if (pairs == null) {
+            pairs = loaded;
+        }
+    }
+
+    private Map<String, WinPlay> pairs() {
+        Map<String, WinPlay> loaded = pairs;
+        if (loaded != null) {
+            return loaded;
+        }
+        synchronized (this) {
+            if (pairs == null) {
+                Map<String, WinPlay> result = loader.load(champion);
+                if (result == null) {
+                    return Map.of();
+                }
+                pairs = result;
+            }
+            return pairs;
+        }
+    }
+
+    @Override
+    public WinPlay get(Object key) {
+        return pairs().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return pairs().containsKey(key);
+    }
+
+    @Override
+    public WinPlay put(String key, WinPlay value) {
+        return pairs().put(key, value);
+    }
+
+    @Override
+    public int size() {
+        return pairs().size();
+    }
+
+    @Override
+    public Set<Entry<String, WinPlay>> entrySet() {
+        return pairs().entrySet();
+    }
+
+    @FunctionalInterface
+    interface PairLoader {
+        Map<String, WinPlay> load(String champion);
+    }
+}
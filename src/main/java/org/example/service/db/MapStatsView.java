@@ -0,0 +1,68 @@
+package org.example.service.db;
+
+import org.example.model.ChampionStats;
+import org.example.model.Role;
+import org.example.model.WinPlay;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+final class MapStatsView implements StatsView {
+    private final Map<String, ChampionStats> champions;
+
+    MapStatsView(Map<String, ChampionStats> champions) {
+        this.champions = Collections.unmodifiableMap(champions);
+    }
+
+    @Override
+    public Collection<String> champions() {
+        return champions.keySet();
+    }
+
+    @Override
+    public boolean contains(String champion) {
+        return champions.containsKey(champion);
+    }
+
+    @Override
+    public int wins(String champion) {
+        ChampionStats stats = champions.get(champion);
+        return stats == null ? 0 : stats.wins();
+    }
+
+    @Override
+    public int games(String champion) {
+        ChampionStats stats = champions.get(champion);
+        return stats == null ? 0 : stats.games();
+    }
+
+    @Override
+    public List<Role> roles(String champion) {
+        ChampionStats stats = champions.get(champion);
+        return stats == null ? List.of(Role.UNKNOWN) : stats.allRoles();
+    }
+
+    @Override
+    public WinPlay synergy(String champion, String ally) {
+        ChampionStats stats = champions.get(champion);
+        return stats == null ? null : stats.synergy().get(ally);
+    }
+
+    @Override
+    public WinPlay counter(String champion, String enemy) {
+        ChampionStats stats = champions.get(champion);
+        return stats == null ? null : stats.counters().get(enemy);
+    }
+
+    @Override
+    public ChampionStats stats(String champion) {
+        return champions.get(champion);
+    }
+
+    @Override
+    public Map<String, ChampionStats> asMap() {
+        return champions;
+    }
+}
@@ -1,35 +1,160 @@
 package org.example.service.db;
 
 import org.example.collector.DatabaseManager;
+import org.example.metrics.Histogram;
+import org.example.metrics.Metrics;
 import org.example.model.ChampionStats;
+import org.example.model.RankTier;
 import org.example.model.StatsSnapshot;
 import org.example.model.WinPlay;
+import org.example.util.PatchVersions;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class SnapshotRebuilder {
+    private static final Histogram TABLE_LOAD = Metrics.latency("snapshot_table_load_seconds", "Time spent loading each stats table during a snapshot rebuild.", "table");
+    private static final List<String> TABLES = List.of("champions", "patches", "champion_stats", "role_stats", "synergy_stats", "counter_stats");
+
+    private final ConnectionSource readers;
+
+    public SnapshotRebuilder() {
+        this(DatabaseManager::connectReadOnly);
+    }
+
+    public SnapshotRebuilder(ConnectionSource readers) {
+        this.readers = readers;
+    }
 
     public StatsSnapshot rebuildSnapshot() throws SQLException {
-        try (Connection conn = DatabaseManager.connect()) {
-            Map<Integer, String> championNames = getChampionNames(conn);
+        return rebuildSnapshot(RankTier.ALL, 0);
+    }
+
+    public StatsSnapshot rebuildSnapshot(RankTier tier, int patchWindow) throws SQLException {
+        try (TableLoads loads = new TableLoads(tier)) {
+            Future<Map<Integer, String>> names = loads.submit("champions", this::getChampionNames);
+            Future<List<String>> patches = loads.submit("patches", this::getPatches);
+            Map<Integer, String> championNames = loads.join(names);
+            StatsFilter filter = filter(tier, patchWindow, loads.join(patches));
+
+            Future<Map<String, ChampionStats>> overall = loads.submit("champion_stats", championNames, filter, this::loadOverallChampionStats);
+            Future<Map<String, ChampionStats>> roles = loads.submit("role_stats", championNames, filter, this::loadRoleStats);
+            Future<Map<String, ChampionStats>> synergy = loads.submit("synergy_stats", championNames, filter, this::loadSynergyStats);
+            Future<Map<String, ChampionStats>> counters = loads.submit("counter_stats", championNames, filter, this::loadCounterStats);
+            Map<String, ChampionStats> overallStats = loads.join(overall);
+            Map<String, ChampionStats> roleStats = loads.join(roles);
+            Map<String, ChampionStats> synergyStats = loads.join(synergy);
+            Map<String, ChampionStats> counterStats = loads.join(counters);
+
             Map<String, ChampionStats> championStatsMap = new HashMap<>();
+            for (String name : championNames.values()) {
+                ChampionStats stats = overallStats.get(name);
+                championStatsMap.put(name, new ChampionStats(stats.wins(), stats.games(),
+                        roleStats.get(name).getRoleCounts(), synergyStats.get(name).getSynergy(), counterStats.get(name).getCounters()));
+            }
+            loads.report();
+            return new StatsSnapshot(championStatsMap);
+        }
+    }
+
+    public StatsSnapshot rebuildLazySnapshot(RankTier tier, int patchWindow, Executor warmUp) throws SQLException {
+        LazyPairs pairs;
+        Map<String, ChampionStats> championStatsMap = new HashMap<>();
+        try (TableLoads loads = new TableLoads(tier)) {
+            Future<Map<Integer, String>> names = loads.submit("champions", this::getChampionNames);
+            Future<List<String>> patches = loads.submit("patches", this::getPatches);
+            Map<Integer, String> championNames = loads.join(names);
+            StatsFilter filter = filter(tier, patchWindow, loads.join(patches));
 
+            Future<Map<String, ChampionStats>> overall = loads.submit("champion_stats", championNames, filter, this::loadOverallChampionStats);
+            Future<Map<String, ChampionStats>> roles = loads.submit("role_stats", championNames, filter, this::loadRoleStats);
+            Map<String, ChampionStats> overallStats = loads.join(overall);
+            Map<String, ChampionStats> roleStats = loads.join(roles);
+
+            pairs = new LazyPairs(championNames, filter);
             for (String name : championNames.values()) {
-                championStatsMap.put(name, new ChampionStats());
+                ChampionStats stats = overallStats.get(name);
+                championStatsMap.put(name, new ChampionStats(stats.wins(), stats.games(),
+                        roleStats.get(name).getRoleCounts(), pairs.synergy.get(name), pairs.counters.get(name)));
             }
+            loads.report();
+        }
+        if (warmUp != null) {
+            warmUp.execute(pairs::warmUp);
+        } else {
+            pairs.skipWarmUp();
+        }
+        return new StatsSnapshot(championStatsMap);
+    }
 
-            loadOverallChampionStats(conn, championStatsMap, championNames);
-            loadRoleStats(conn, championStatsMap, championNames);
-            loadSynergyStats(conn, championStatsMap, championNames);
-            loadCounterStats(conn, championStatsMap, championNames);
+    public Path publishBinarySnapshot(Path base, int patchWindow) throws SQLException, IOException {
+        Map<RankTier, StatsSnapshot> snapshots = new EnumMap<>(RankTier.class);
+        for (RankTier tier : RankTier.values()) {
+            snapshots.put(tier, rebuildSnapshot(tier, patchWindow));
+        }
+        return BinarySnapshot.publish(base, patchWindow, snapshots);
+    }
 
-            return new StatsSnapshot(championStatsMap);
+    public void writeBinarySnapshot(Connection conn, Path target, int patchWindow) throws SQLException, IOException {
+        Map<RankTier, StatsSnapshot> snapshots = new EnumMap<>(RankTier.class);
+        for (RankTier tier : RankTier.values()) {
+            snapshots.put(tier, rebuildSnapshot(conn, tier, patchWindow));
         }
+        BinarySnapshot.write(target, patchWindow, snapshots);
+    }
+
+    public StatsSnapshot rebuildSnapshot(Connection conn, RankTier tier, int patchWindow) throws SQLException {
+        Map<Integer, String> championNames = getChampionNames(conn);
+        StatsFilter filter = filter(tier, patchWindow, getPatches(conn));
+        Map<String, ChampionStats> championStatsMap = emptyStats(championNames);
+
+        loadOverallChampionStats(conn, championStatsMap, championNames, filter);
+        loadRoleStats(conn, championStatsMap, championNames, filter);
+        loadSynergyStats(conn, championStatsMap, championNames, filter);
+        loadCounterStats(conn, championStatsMap, championNames, filter);
+
+        return new StatsSnapshot(championStatsMap);
+    }
+
+    private static Map<String, ChampionStats> emptyStats(Map<Integer, String> championNames) {
+        Map<String, ChampionStats> championStatsMap = new HashMap<>();
+        for (String name : championNames.values()) {
+            championStatsMap.put(name, new ChampionStats());
+        }
+        return championStatsMap;
+    }
+
+    private StatsFilter filter(RankTier tier, int patchWindow, List<String> patches) {
+        return new StatsFilter(tier, patchWindow > 0 ? PatchVersions.newest(patches, patchWindow) : List.of());
+    }
+
+    private List<String> getPatches(Connection conn) throws SQLException {
+        List<String> patches = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT DISTINCT patch FROM champion_stats")) {
+            while (rs.next()) {
+                patches.add(rs.getString(1));
+            }
+        }
+        return patches;
     }
 
     private Map<Integer, String> getChampionNames(Connection conn) throws SQLException {
@@ -43,9 +168,9 @@ public class SnapshotRebuilder {
         return championNames;
     }
 
-    private void loadOverallChampionStats(Connection conn, Map<String, ChampionStats> statsMap, Map<Integer, String> championNames) throws SQLException {
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT champion_id, wins, plays FROM champion_stats")) {
+    private void loadOverallChampionStats(Connection conn, Map<String, ChampionStats> statsMap, Map<Integer, String> championNames, StatsFilter filter) throws SQLException {
+        try (PreparedStatement stmt = prepareAggregate(conn, "champion_id, SUM(wins) AS wins, SUM(plays) AS plays", "champion_stats", "champion_id", filter);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 String name = championNames.get(rs.getInt("champion_id"));
                 if (name != null) {
@@ -63,9 +188,9 @@ public class SnapshotRebuilder {
         }
     }
 
-    private void loadRoleStats(Connection conn, Map<String, ChampionStats> statsMap, Map<Integer, String> championNames) throws SQLException {
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT champion_id, role, plays FROM role_stats")) {
+    private void loadRoleStats(Connection conn, Map<String, ChampionStats> statsMap, Map<Integer, String> championNames, StatsFilter filter) throws SQLException {
+        try (PreparedStatement stmt = prepareAggregate(conn, "champion_id, role, SUM(plays) AS plays", "role_stats", "champion_id, role", filter);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 String name = championNames.get(rs.getInt("champion_id"));
                 if (name != null) {
@@ -76,9 +201,9 @@ public class SnapshotRebuilder {
         }
     }
 
-    private void loadSynergyStats(Connection conn, Map<String, ChampionStats> statsMap, Map<Integer, String> championNames) throws SQLException {
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT champion_id, ally_id, wins, plays FROM synergy_stats")) {
+    private void loadSynergyStats(Connection conn, Map<String, ChampionStats> statsMap, Map<Integer, String> championNames, StatsFilter filter) throws SQLException {
+        try (PreparedStatement stmt = prepareAggregate(conn, "champion_id, ally_id, SUM(wins) AS wins, SUM(plays) AS plays", "synergy_stats", "champion_id, ally_id", filter);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 String champ1Name = championNames.get(rs.getInt("champion_id"));
                 String champ2Name = championNames.get(rs.getInt("ally_id"));
@@ -91,9 +216,9 @@ public class SnapshotRebuilder {
         }
     }
 
-    private void loadCounterStats(Connection conn, Map<String, ChampionStats> statsMap, Map<Integer, String> championNames) throws SQLException {
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT champion_id, enemy_id, wins, plays FROM counter_stats")) {
+    private void loadCounterStats(Connection conn, Map<String, ChampionStats> statsMap, Map<Integer, String> championNames, StatsFilter filter) throws SQLException {
+        try (PreparedStatement stmt = prepareAggregate(conn, "champion_id, enemy_id, SUM(wins) AS wins, SUM(plays) AS plays", "counter_stats", "champion_id, enemy_id", filter);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 String champName = championNames.get(rs.getInt("champion_id"));
                 String enemyName = championNames.get(rs.getInt("enemy_id"));
@@ -104,4 +229,218 @@ public class SnapshotRebuilder {
             }
         }
     }
+
+    private PreparedStatement prepareAggregate(Connection conn, String columns, String table, String groupBy, StatsFilter filter) throws SQLException {
+        return prepareAggregate(conn, columns, table, groupBy, filter, null, 0);
+    }
+
+    private PreparedStatement prepareAggregate(Connection conn, String columns, String table, String groupBy, StatsFilter filter, String keyColumn, int key) throws SQLException {
+        List<String> conditions = new ArrayList<>();
+        if (!filter.patches().isEmpty()) {
+            conditions.add("patch IN (" + String.join(", ", Collections.nCopies(filter.patches().size(), "?")) + ")");
+        }
+        boolean tierFiltered = filter.tier() != null && filter.tier() != RankTier.ALL;
+        if (tierFiltered) {
+            conditions.add("tier = ?");
+        }
+        if (keyColumn != null) {
+            conditions.add(keyColumn + " = ?");
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        PreparedStatement stmt = conn.prepareStatement("SELECT " + columns + " FROM " + table + where + " GROUP BY " + groupBy);
+        int index = 1;
+        for (String patch : filter.patches()) {
+            stmt.setString(index++, patch);
+        }
+        if (tierFiltered) {
+            stmt.setString(index++, filter.tier().key());
+        }
+        if (keyColumn != null) {
+            stmt.setInt(index, key);
+        }
+        return stmt;
+    }
+
+    private record StatsFilter(RankTier tier, List<String> patches) {
+    }
+
+    private final class LazyPairs {
+        private final Map<Integer, String> championNames;
+        private final Map<String, Integer> championIds = new HashMap<>();
+        private final StatsFilter filter;
+        private final Map<String, LazyPairMap> synergy = new HashMap<>();
+        private final Map<String, LazyPairMap> counters = new HashMap<>();
+        private Connection pointConnection;
+        private boolean warmUpDone;
+
+        LazyPairs(Map<Integer, String> championNames, StatsFilter filter) {
+            this.championNames = championNames;
+            this.filter = filter;
+            championNames.forEach((id, name) -> {
+                championIds.put(name, id);
+                synergy.put(name, new LazyPairMap(name, champion -> pointLoad(champion, true)));
+                counters.put(name, new LazyPairMap(name, champion -> pointLoad(champion, false)));
+            });
+        }
+
+        private synchronized Map<String, WinPlay> pointLoad(String champion, boolean synergyTable) {
+            Integer id = championIds.get(champion);
+            if (id == null) {
+                return new HashMap<>();
+            }
+            try {
+                if (pointConnection == null) {
+                    pointConnection = readers.open();
+                }
+                Map<String, WinPlay> pairs = new HashMap<>();
+                if (synergyTable) {
+                    readPairs(pointConnection, "synergy_stats", "ally_id", "champion_id", id, pairs);
+                    readPairs(pointConnection, "synergy_stats", "champion_id", "ally_id", id, pairs);
+                } else {
+                    readPairs(pointConnection, "counter_stats", "enemy_id", "champion_id", id, pairs);
+                }
+                return pairs;
+            } catch (SQLException e) {
+                System.err.println("Failed to load pair stats for " + champion + ": " + e.getMessage());
+                return null;
+            } finally {
+                // Once warm-up has ended (even unsuccessfully) nothing keeps the connection busy, so don't hold snapshot.db open.
+                if (warmUpDone) {
+                    closePointConnection();
+                }
+            }
+        }
+
+        private void readPairs(Connection conn, String table, String otherColumn, String keyColumn, int id, Map<String, WinPlay> pairs) throws SQLException {
+            try (PreparedStatement stmt = prepareAggregate(conn, otherColumn + " AS other_id, SUM(wins) AS wins, SUM(plays) AS plays", table, otherColumn, filter, keyColumn, id);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String other = championNames.get(rs.getInt("other_id"));
+                    if (other != null) {
+                        pairs.put(other, new WinPlay(rs.getInt("wins"), rs.getInt("plays")));
+                    }
+                }
+            }
+        }
+
+        void warmUp() {
+            long startNanos = System.nanoTime();
+            try {
+                Map<String, ChampionStats> synergyStats;
+                Map<String, ChampionStats> counterStats;
+                try (TableLoads loads = new TableLoads(filter.tier())) {
+                    Future<Map<String, ChampionStats>> synergyLoad = loads.submit("synergy_stats", championNames, filter, SnapshotRebuilder.this::loadSynergyStats);
+                    Future<Map<String, ChampionStats>> counterLoad = loads.submit("counter_stats", championNames, filter, SnapshotRebuilder.this::loadCounterStats);
+                    synergyStats = loads.join(synergyLoad);
+                    counterStats = loads.join(counterLoad);
+                } catch (SQLException e) {
+                    System.err.println("Failed to warm up pair stats: " + e.getMessage());
+                    return;
+                }
+                int pending = 0;
+                for (String name : championNames.values()) {
+                    LazyPairMap synergyPairs = synergy.get(name);
+                    LazyPairMap counterPairs = counters.get(name);
+                    if (!synergyPairs.isLoaded() || !counterPairs.isLoaded()) pending++;
+                    synergyPairs.fill(synergyStats.get(name).getSynergy());
+                    counterPairs.fill(counterStats.get(name).getCounters());
+                }
+                System.out.printf("Warmed up pair stats for %d champions (%s) in %d ms%n", pending, filter.tier().label(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            } finally {
+                synchronized (this) {
+                    warmUpDone = true;
+                    closePointConnection();
+                }
+            }
+        }
+
+        synchronized void skipWarmUp() {
+            warmUpDone = true;
+        }
+
+        private synchronized void closePointConnection() {
+            if (pointConnection == null) return;
+            try {
+                pointConnection.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close pair stats connection: " + e.getMessage());
+            }
+            pointConnection = null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface TableLoader<T> {
+        T load(Connection conn) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface StatsLoader {
+        void load(Connection conn, Map<String, ChampionStats> statsMap, Map<Integer, String> championNames, StatsFilter filter) throws SQLException;
+    }
+
+    private final class TableLoads implements AutoCloseable {
+        private final RankTier tier;
+        private final long startNanos = System.nanoTime();
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        private final Map<String, Long> timings = new ConcurrentHashMap<>();
+
+        TableLoads(RankTier tier) {
+            this.tier = tier;
+        }
+
+        <T> Future<T> submit(String table, TableLoader<T> loader) {
+            return executor.submit(() -> {
+                long loadStart = System.nanoTime();
+                try (Connection conn = readers.open()) {
+                    return loader.load(conn);
+                } finally {
+                    long nanos = System.nanoTime() - loadStart;
+                    TABLE_LOAD.observeNanos(nanos, table);
+                    timings.put(table, nanos);
+                }
+            });
+        }
+
+        Future<Map<String, ChampionStats>> submit(String table, Map<Integer, String> championNames, StatsFilter filter, StatsLoader loader) {
+            return submit(table, conn -> {
+                Map<String, ChampionStats> statsMap = emptyStats(championNames);
+                loader.load(conn, statsMap, championNames, filter);
+                return statsMap;
+            });
+        }
+
+        <T> T join(Future<T> future) throws SQLException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while loading snapshot", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException sql) {
+                    throw sql;
+                }
+                throw new SQLException("Failed to load snapshot table", e.getCause());
+            }
+        }
+
+        void report() {
+            StringBuilder line = new StringBuilder("Loaded ").append(tier == null ? RankTier.ALL.label() : tier.label())
+                    .append(" snapshot in ").append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)).append(" ms (");
+            String separator = "";
+            for (String table : TABLES) {
+                Long nanos = timings.get(table);
+                if (nanos == null) continue;
+                line.append(separator).append(table).append(' ').append(TimeUnit.NANOSECONDS.toMillis(nanos)).append(" ms");
+                separator = ", ";
+            }
+            System.out.println(line.append(')'));
+        }
+
+        @Override
+        public void close() {
+            executor.close();
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package org.example.service.db;
+
+import org.example.model.ChampionStats;
+import org.example.model.Role;
+import org.example.model.StatsSnapshot;
+import org.example.model.WinPlay;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface StatsView {
+    Collection<String> champions();
+
+    boolean contains(String champion);
+
+    int wins(String champion);
+
+    int games(String champion);
+
+    List<Role> roles(String champion);
+
+    WinPlay synergy(String champion, String ally);
+
+    WinPlay counter(String champion, String enemy);
+
+    ChampionStats stats(String champion);
+
+    Map<String, ChampionStats> asMap();
+
+    default boolean isEmpty() {
+        return champions().isEmpty();
+    }
+
+    default double winRate(String champion) {
+        int games = games(champion);
+        return games == 0 ? 0.0 : (double) wins(champion) / games;
+    }
+
+    static StatsView of(StatsSnapshot snapshot) {
+        return new MapStatsView(snapshot == null || snapshot.champions() == null ? Map.of() : snapshot.champions());
+    }
+}
@@ -0,0 +1,392 @@
+package org.example.tools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+public class RiotApiStub {
+    private static final Pattern LEAGUE_EXP = Pattern.compile("/lol/league-exp/v4/entries/([A-Za-z0-9_]+)/([A-Z]+)/([IV]+)");
+    private static final Pattern MATCH_IDS = Pattern.compile("/lol/match/v5/matches/by-puuid/([^/]+)/ids");
+    private static final Pattern MATCH = Pattern.compile("/lol/match/v5/matches/([A-Z0-9]+)_(\\d+)");
+    private static final Pattern FIXTURE_MATCH_ID = Pattern.compile("\"matchId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final long FIRST_MATCH_NUMBER = 7_000_000_000L;
+    private static final int LEAGUE_PAGE_SIZE = 205;
+
+    private final Path fixtureDir;
+    private final List<Fixture> matches;
+    private final String appLimits;
+    private final String methodLimits;
+    private final int leaguePages;
+    private final int matchCatalog;
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final double errorRate;
+    private final Map<String, Limits> limitsByKey = new ConcurrentHashMap<>();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public RiotApiStub(Path fixtureDir, String appLimits, String methodLimits, int leaguePages, int matchCatalog,
+                       long latencyMillis, long latencyJitterMillis, double errorRate) throws IOException {
+        this.fixtureDir = fixtureDir;
+        this.matches = loadMatches(fixtureDir.resolve("matches"));
+        this.appLimits = appLimits;
+        this.methodLimits = methodLimits;
+        this.leaguePages = leaguePages;
+        this.matchCatalog = Math.max(1, matchCatalog);
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.errorRate = errorRate;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path fixtureDir = Paths.get(System.getenv().getOrDefault("STUB_FIXTURE_DIR", "src/jmh/resources"));
+        int port = parseIntEnv("STUB_PORT", 8089);
+        RiotApiStub stub = new RiotApiStub(
+                fixtureDir,
+                System.getenv().getOrDefault("STUB_APP_RATE_LIMIT", "20:1,100:120"),
+                System.getenv().getOrDefault("STUB_METHOD_RATE_LIMIT", "2000:10"),
+                parseIntEnv("STUB_LEAGUE_PAGES", 3),
+                parseIntEnv("STUB_MATCH_CATALOG", 50_000),
+                parseIntEnv("STUB_LATENCY_MS", 0),
+                parseIntEnv("STUB_LATENCY_JITTER_MS", 0),
+                Double.parseDouble(System.getenv().getOrDefault("STUB_ERROR_RATE", "0")));
+        HttpServer server = stub.start(port);
+        System.out.println("Riot API stub serving " + stub.matches.size() + " match fixtures from " + fixtureDir.toAbsolutePath()
+                + " on http://127.0.0.1:" + server.getAddress().getPort()
+                + " (set RIOT_API_BASE_URL to this address for the collector)");
+        while (true) {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                server.stop(0);
+                return;
+            }
+            System.out.println("[RiotApiStub] served=" + stub.served.get() + " throttled=" + stub.throttled.get() + " failed=" + stub.failed.get());
+        }
+    }
+
+    public HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return server;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getRawPath();
+            int split = path.indexOf('/', 1);
+            if (split < 0) {
+                respond(exchange, 404, null);
+                return;
+            }
+            String host = path.substring(1, split);
+            String apiPath = path.substring(split);
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            Route route = route(host, apiPath, query);
+            if (route == null) {
+                respond(exchange, 404, "{\"status\":{\"message\":\"Data not found\",\"status_code\":404}}");
+                return;
+            }
+            simulateLatency();
+            long now = System.nanoTime();
+            Limits app = limits(host, appLimits);
+            Limits method = limits(host + " " + route.method(), methodLimits);
+            long appWait;
+            long methodWait;
+            synchronized (app) {
+                synchronized (method) {
+                    appWait = app.waitNanos(now);
+                    methodWait = method.waitNanos(now);
+                    if (appWait == 0 && methodWait == 0) {
+                        app.record(now);
+                        method.record(now);
+                    }
+                }
+            }
+            exchange.getResponseHeaders().set("X-App-Rate-Limit", appLimits);
+            exchange.getResponseHeaders().set("X-App-Rate-Limit-Count", app.counts(now));
+            exchange.getResponseHeaders().set("X-Method-Rate-Limit", methodLimits);
+            exchange.getResponseHeaders().set("X-Method-Rate-Limit-Count", method.counts(now));
+            if (appWait > 0 || methodWait > 0) {
+                throttled.incrementAndGet();
+                long retrySeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(Math.max(appWait, methodWait) + 999_999_999L));
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(retrySeconds));
+                exchange.getResponseHeaders().set("X-Rate-Limit-Type", appWait >= methodWait ? "application" : "method");
+                respond(exchange, 429, "{\"status\":{\"message\":\"Rate limit exceeded\",\"status_code\":429}}");
+                return;
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failed.incrementAndGet();
+                respond(exchange, 503, "{\"status\":{\"message\":\"Service unavailable\",\"status_code\":503}}");
+                return;
+            }
+            served.incrementAndGet();
+            respond(exchange, 200, route.body().render());
+        }
+    }
+
+    private Route route(String host, String apiPath, Map<String, String> query) {
+        Matcher league = LEAGUE_EXP.matcher(apiPath);
+        if (league.matches()) {
+            String tier = league.group(2);
+            int page = parseInt(query.get("page"), 1);
+            return new Route("league-exp", () -> leagueEntries(host, league.group(1), tier, league.group(3), page));
+        }
+        Matcher ids = MATCH_IDS.matcher(apiPath);
+        if (ids.matches()) {
+            String puuid = ids.group(1);
+            int count = Math.min(100, parseInt(query.get("count"), 20));
+            return new Route("match-ids", () -> matchIds(host, puuid, count));
+        }
+        Matcher match = MATCH.matcher(apiPath);
+        if (match.matches() && !matches.isEmpty()) {
+            String matchId = match.group(1) + "_" + match.group(2);
+            return new Route("match", () -> match(matchId, Long.parseLong(match.group(2))));
+        }
+        return null;
+    }
+
+    private String leagueEntries(String host, String queue, String tier, String division, int page) {
+        String recorded = recorded("league-exp", tier + "-" + page);
+        if (recorded != null) {
+            return recorded;
+        }
+        if (page < 1 || page > leaguePages) {
+            return "[]";
+        }
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < LEAGUE_PAGE_SIZE; i++) {
+            if (i > 0) body.append(',');
+            String puuid = "stub-" + host.split("\\.")[0] + "-" + tier + "-" + page + "-" + i;
+            body.append("{\"leagueId\":\"stub-").append(tier).append("\",\"queueType\":\"").append(queue)
+                    .append("\",\"tier\":\"").append(tier).append("\",\"rank\":\"").append(division)
+                    .append("\",\"puuid\":\"").append(puuid).append("\",\"leaguePoints\":").append(1000 - i)
+                    .append(",\"wins\":100,\"losses\":80}");
+        }
+        return body.append(']').toString();
+    }
+
+    private String matchIds(String host, String puuid, int count) {
+        String recorded = recorded("match-ids", puuid);
+        if (recorded != null) {
+            return recorded;
+        }
+        String prefix = platformPrefix(host);
+        long seed = puuid.hashCode() & 0xffffffffL;
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) body.append(',');
+            long number = FIRST_MATCH_NUMBER + Math.floorMod(seed + i * 7919L, matchCatalog);
+            body.append('"').append(prefix).append('_').append(number).append('"');
+        }
+        return body.append(']').toString();
+    }
+
+    private String match(String matchId, long number) {
+        String recorded = recorded("matches", matchId);
+        if (recorded != null) {
+            return recorded;
+        }
+        Fixture fixture = matches.get((int) Math.floorMod(number, (long) matches.size()));
+        return fixture.json().replace(fixture.matchId(), matchId);
+    }
+
+    private String recorded(String kind, String name) {
+        Path file = fixtureDir.resolve(kind).resolve(name + ".json");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String platformPrefix(String host) {
+        return switch (host.split("\\.")[0].toLowerCase()) {
+            case "americas" -> "NA1";
+            case "asia" -> "KR";
+            case "sea" -> "OC1";
+            default -> "EUW1";
+        };
+    }
+
+    private void simulateLatency() {
+        long delay = latencyMillis + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Limits limits(String key, String spec) {
+        Limits limits = limitsByKey.get(key);
+        return limits != null ? limits : limitsByKey.computeIfAbsent(key, ignored -> Limits.parse(spec));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=utf-8");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static List<Fixture> loadMatches(Path dir) throws IOException {
+        List<Fixture> fixtures = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return fixtures;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".json")).sorted().toList()) {
+                String json = Files.readString(file);
+                Matcher id = FIXTURE_MATCH_ID.matcher(json);
+                if (id.find()) {
+                    fixtures.add(new Fixture(id.group(1), json));
+                }
+            }
+        }
+        return fixtures;
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return params;
+    }
+
+    private static int parseInt(String value, int fallback) {
+        try {
+            return value == null ? fallback : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static int parseIntEnv(String key, int fallback) {
+        return parseInt(System.getenv(key), fallback);
+    }
+
+    private record Fixture(String matchId, String json) {
+    }
+
+    private record Route(String method, Body body) {
+    }
+
+    private interface Body {
+        String render();
+    }
+
+    private static final class Limits {
+        private final int[] limits;
+        private final long[] windowNanos;
+        private final List<ArrayDeque<Long>> sent;
+
+        private Limits(List<long[]> pairs) {
+            limits = new int[pairs.size()];
+            windowNanos = new long[pairs.size()];
+            sent = new ArrayList<>(pairs.size());
+            for (int i = 0; i < pairs.size(); i++) {
+                limits[i] = (int) pairs.get(i)[0];
+                windowNanos[i] = TimeUnit.SECONDS.toNanos(pairs.get(i)[1]);
+                sent.add(new ArrayDeque<>());
+            }
+        }
+
+        static Limits parse(String spec) {
+            List<long[]> pairs = new ArrayList<>();
+            for (String part : spec.split(",")) {
+                String[] values = part.trim().split(":");
+                if (values.length == 2) {
+                    pairs.add(new long[]{Long.parseLong(values[0].trim()), Long.parseLong(values[1].trim())});
+                }
+            }
+            return new Limits(pairs);
+        }
+
+        synchronized long waitNanos(long now) {
+            long wait = 0;
+            for (int i = 0; i < limits.length; i++) {
+                expire(i, now);
+                ArrayDeque<Long> window = sent.get(i);
+                if (window.size() >= limits[i]) {
+                    wait = Math.max(wait, window.peekFirst() + windowNanos[i] - now);
+                }
+            }
+            return wait;
+        }
+
+        synchronized void record(long now) {
+            for (ArrayDeque<Long> window : sent) {
+                window.addLast(now);
+            }
+        }
+
+        synchronized String counts(long now) {
+            StringBuilder header = new StringBuilder();
+            for (int i = 0; i < limits.length; i++) {
+                expire(i, now);
+                if (i > 0) header.append(',');
+                header.append(sent.get(i).size()).append(':').append(TimeUnit.NANOSECONDS.toSeconds(windowNanos[i]));
+            }
+            return header.toString();
+        }
+
+        private void expire(int index, long now) {
+            ArrayDeque<Long> window = sent.get(index);
+            while (!window.isEmpty() && window.peekFirst() <= now - windowNanos[index]) {
+                window.pollFirst();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.util;
+
+import org.example.metrics.Counter;
+import org.example.metrics.Histogram;
+import org.example.metrics.Metrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+public final class ApiPayload {
+    private static final int BUFFER_SIZE = 8192;
+    private static final Histogram DECOMPRESS_TIME = Metrics.latency("riot_api_decompress_seconds", "Time spent inflating gzip response bodies.");
+    private static final Counter DECODED_BYTES = Metrics.counter("riot_api_decoded_bytes_total", "Response bytes after decompression, by content encoding.", "encoding");
+
+    private final byte[] raw;
+    private final boolean gzip;
+
+    ApiPayload(byte[] raw, boolean gzip) {
+        this.raw = raw == null ? new byte[0] : raw;
+        this.gzip = gzip;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public byte[] raw() {
+        return raw;
+    }
+
+    public InputStream open() throws IOException {
+        InputStream in = new ByteArrayInputStream(raw);
+        return gzip ? new InflatingStream(new GZIPInputStream(in, BUFFER_SIZE)) : new InflatingStream(in, "identity");
+    }
+
+    public byte[] decode() throws IOException {
+        if (!gzip) {
+            DECODED_BYTES.add(raw.length, "identity");
+            return raw;
+        }
+        try (InputStream in = open()) {
+            return in.readAllBytes();
+        }
+    }
+
+    public String text() throws IOException {
+        return new String(decode(), StandardCharsets.UTF_8);
+    }
+
+    private static final class InflatingStream extends FilterInputStream {
+        private final String encoding;
+        private long nanos;
+        private long bytes;
+        private boolean closed;
+
+        InflatingStream(GZIPInputStream in) {
+            this(in, "gzip");
+        }
+
+        InflatingStream(InputStream in, String encoding) {
+            super(in);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long startNanos = System.nanoTime();
+            int value = super.read();
+            nanos += System.nanoTime() - startNanos;
+            if (value >= 0) bytes++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long startNanos = System.nanoTime();
+            int read = super.read(buffer, offset, length);
+            nanos += System.nanoTime() - startNanos;
+            if (read > 0) bytes += read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            super.close();
+            DECODED_BYTES.add(bytes, encoding);
+            if ("gzip".equals(encoding)) {
+                DECOMPRESS_TIME.observeNanos(nanos);
+            }
+        }
+    }
+}
@@ -106,4 +106,12 @@ public final class AppPaths {
     public static Path snapshotPath() {
         return locateDataFile("snapshot.db");
     }
+
+    public static Path binarySnapshotPath() {
+        return snapshotPath().resolveSibling("snapshot.bin");
+    }
+
+    public static Path matchStoreDir() {
+        return locateDataDir().resolve("matches");
+    }
 }
@@ -0,0 +1,25 @@
+package org.example.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class BackoffGate {
+    private final Map<String, Long> closedUntil = new ConcurrentHashMap<>();
+
+    void pause(String host, String method, long nanos, long now) {
+        closedUntil.merge(key(host, method), now + nanos, Math::max);
+    }
+
+    long remainingNanos(String host, String method, long now) {
+        return Math.max(remaining(key(host, null), now), remaining(key(host, method), now));
+    }
+
+    private long remaining(String key, long now) {
+        Long until = closedUntil.get(key);
+        return until == null ? 0 : Math.max(0, until - now);
+    }
+
+    private static String key(String host, String method) {
+        return method == null ? host : host + ' ' + method;
+    }
+}
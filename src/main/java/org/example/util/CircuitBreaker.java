@@ -0,0 +1,95 @@
+package org.example.util;
+
+final class CircuitBreaker {
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final boolean[] outcomes;
+    private final int minSamples;
+    private final double failureThreshold;
+    private final long openNanos;
+    private int head;
+    private int size;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing;
+    private long probeStartedAt;
+
+    CircuitBreaker(int window, int minSamples, double failureThreshold, long openNanos) {
+        this.outcomes = new boolean[Math.max(1, window)];
+        this.minSamples = Math.max(1, Math.min(minSamples, outcomes.length));
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    synchronized boolean tryAcquire(long now) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openNanos) return false;
+                state = State.HALF_OPEN;
+                probing = true;
+                probeStartedAt = now;
+                return true;
+            default:
+                if (probing && now - probeStartedAt < openNanos) return false;
+                probing = true;
+                probeStartedAt = now;
+                return true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure(long now) {
+        if (state == State.HALF_OPEN) {
+            open(now);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && size >= minSamples && failures >= failureThreshold * size) {
+            open(now);
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    synchronized long remainingOpenNanos(long now) {
+        return state == State.OPEN ? Math.max(0, openNanos - (now - openedAt)) : 0;
+    }
+
+    private void record(boolean failure) {
+        if (size == outcomes.length) {
+            if (outcomes[head]) failures--;
+            outcomes[head] = failure;
+            head = (head + 1) % outcomes.length;
+        } else {
+            outcomes[(head + size) % outcomes.length] = failure;
+            size++;
+        }
+        if (failure) failures++;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+        probing = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probing = false;
+        head = 0;
+        size = 0;
+        failures = 0;
+    }
+}
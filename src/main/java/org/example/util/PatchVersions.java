@@ -0,0 +1,41 @@
+package org.example.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+public final class PatchVersions {
+    public static final Comparator<String> NEWEST_FIRST = Comparator.comparingLong(PatchVersions::sortKey).reversed();
+
+    private PatchVersions() {}
+
+    public static String patchOf(String gameVersion) {
+        if (gameVersion == null || gameVersion.isBlank()) return "";
+        String[] parts = gameVersion.trim().split("\\.");
+        if (parts.length < 2) return "";
+        try {
+            return Integer.parseInt(parts[0]) + "." + Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return "";
+        }
+    }
+
+    public static List<String> newest(Collection<String> patches, int count) {
+        List<String> sorted = new ArrayList<>();
+        for (String patch : patches) {
+            if (patch != null && !patch.isBlank()) {
+                sorted.add(patch);
+            }
+        }
+        sorted.sort(NEWEST_FIRST);
+        return count <= 0 || sorted.size() <= count ? sorted : new ArrayList<>(sorted.subList(0, count));
+    }
+
+    private static long sortKey(String patch) {
+        String normalized = patchOf(patch);
+        if (normalized.isEmpty()) return -1L;
+        int dot = normalized.indexOf('.');
+        return Long.parseLong(normalized.substring(0, dot)) * 1_000L + Long.parseLong(normalized.substring(dot + 1));
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.util;
+
+final class RateLimitWindow {
+    private final long windowNanos;
+    private long[] ring;
+    private int head;
+    private int size;
+
+    RateLimitWindow(int limit, long windowNanos) {
+        this.windowNanos = windowNanos;
+        this.ring = new long[Math.max(0, limit)];
+    }
+
+    long windowNanos() {
+        return windowNanos;
+    }
+
+    long earliest(long now) {
+        if (ring.length == 0 || size < ring.length) {
+            return now;
+        }
+        return Math.max(now, ring[head] + windowNanos);
+    }
+
+    // Keeps the ring sorted by time and holding the newest entries, so ring[head] is always the oldest.
+    void record(long at) {
+        int capacity = ring.length;
+        if (capacity == 0) return;
+        if (size == capacity) {
+            if (at <= ring[head]) return;
+            head = (head + 1) % capacity;
+            size--;
+        }
+        int i = size;
+        while (i > 0 && ring[(head + i - 1) % capacity] > at) {
+            ring[(head + i) % capacity] = ring[(head + i - 1) % capacity];
+            i--;
+        }
+        ring[(head + i) % capacity] = at;
+        size++;
+    }
+
+    int count(long now) {
+        long threshold = now - windowNanos;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            long at = ring[(head + i) % ring.length];
+            if (at > threshold && at <= now) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Reservations after now stay in the ring as in-flight; the server cannot have counted them yet.
+    void syncCount(int observed, long now) {
+        int missing = observed - count(now);
+        for (int i = 0; i < missing; i++) {
+            record(now);
+        }
+    }
+
+    void setLimit(int limit) {
+        int capacity = Math.max(0, limit);
+        if (capacity == ring.length) return;
+        long[] resized = new long[capacity];
+        int kept = Math.min(size, capacity);
+        for (int i = 0; i < kept; i++) {
+            resized[i] = ring[(head + size - kept + i) % ring.length];
+        }
+        ring = resized;
+        head = 0;
+        size = kept;
+    }
+}
@@ -1,21 +1,61 @@
 package org.example.util;
 
+import org.example.metrics.Counter;
+import org.example.metrics.Gauge;
+import org.example.metrics.Histogram;
+import org.example.metrics.Metrics;
+
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 public class RiotApiClient {
+    private static final int MAX_SERVER_ERROR_ATTEMPTS = 4;
+    private static final long BASE_SERVER_ERROR_DELAY_MILLIS = 500;
+    private static final long MAX_SERVER_ERROR_DELAY_MILLIS = 8_000;
+    private static final int BREAKER_WINDOW = 50;
+    private static final int BREAKER_MIN_SAMPLES = 20;
+    private static final double BREAKER_FAILURE_RATIO = 0.5;
+    private static final long BREAKER_OPEN_MILLIS = 30_000;
+    private static final String RATE_LIMIT_TYPE_HEADER = "X-Rate-Limit-Type";
+    private static final HttpResponse.BodyHandler<ApiPayload> PAYLOAD_HANDLER = info -> HttpResponse.BodySubscribers.mapping(
+            HttpResponse.BodySubscribers.ofByteArray(), bytes -> new ApiPayload(bytes, isGzip(info)));
+    private static final int METHOD_PREFIX_SEGMENTS = 4;
+    private static final Pattern METHOD_SEGMENT = Pattern.compile("[a-z-]+");
+    private static final Counter RESPONSES = Metrics.counter("riot_api_responses_total", "Riot API responses by host and status code.", "host", "status");
+    private static final Counter RECEIVED_BYTES = Metrics.counter("riot_api_received_bytes_total", "Response bytes received on the wire, by host and content encoding.", "host", "encoding");
+    private static final Histogram LATENCY = Metrics.latency("riot_api_request_seconds", "Riot API round-trip latency by method.", "method");
+    private static final Histogram RETRY_DELAY = Metrics.latency("riot_api_retry_delay_seconds", "Backoff applied before retrying, by reason.", "reason");
+    private static final Counter BACKOFF_PAUSES = Metrics.counter("riot_api_backoff_pauses_total", "429 responses that paused every caller, by host and limit scope.", "host", "scope");
+    private static final Gauge CIRCUIT_STATE = Metrics.gauge("riot_api_circuit_state", "Circuit breaker state by host (0 closed, 1 half-open, 2 open).", "host");
+    private static final Counter CIRCUIT_REJECTIONS = Metrics.counter("riot_api_circuit_rejections_total", "Requests rejected while the circuit was open, by host.", "host");
+
     private final HttpClient httpClient;
     private final String apiKey;
     private final RiotRateLimiter rateLimiter;
+    private final String baseUrl;
+    private final BackoffGate backoffGate = new BackoffGate();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
 
     public RiotApiClient(String apiKey, RiotRateLimiter rateLimiter) {
+        this(apiKey, rateLimiter, null);
+    }
+
+    public RiotApiClient(String apiKey, RiotRateLimiter rateLimiter, String baseUrl) {
         this.apiKey = apiKey;
         this.rateLimiter = rateLimiter;
+        this.baseUrl = baseUrl == null || baseUrl.isBlank() ? null : baseUrl.replaceAll("/+$", "");
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
@@ -26,40 +66,242 @@ public class RiotApiClient {
     }
 
     public String get(URI uri) throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(uri)
+        return execute(uri).text();
+    }
+
+    public byte[] getBytes(String url) throws IOException, InterruptedException {
+        return execute(URI.create(url)).decode();
+    }
+
+    public ApiPayload getPayload(String url) throws IOException, InterruptedException {
+        return execute(URI.create(url));
+    }
+
+    public CompletableFuture<String> getAsync(String url) {
+        return getAsync(URI.create(url));
+    }
+
+    public CompletableFuture<String> getAsync(URI uri) {
+        return executeAsync(uri, 1).thenApply(payload -> {
+            try {
+                return payload.text();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    public CompletableFuture<byte[]> getBytesAsync(String url) {
+        return executeAsync(URI.create(url), 1).thenApply(payload -> {
+            try {
+                return payload.decode();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    public CompletableFuture<ApiPayload> getPayloadAsync(String url) {
+        return executeAsync(URI.create(url), 1);
+    }
+
+    private HttpRequest buildRequest(URI uri) {
+        return HttpRequest.newBuilder()
+                .uri(route(uri))
                 .header("X-Riot-Token", apiKey)
+                .header("Accept-Encoding", "gzip")
                 .GET()
                 .build();
-        return execute(request);
     }
 
-    private String execute(HttpRequest request) throws IOException, InterruptedException {
+    private URI route(URI uri) {
+        if (baseUrl == null) {
+            return uri;
+        }
+        String query = uri.getRawQuery();
+        return URI.create(baseUrl + "/" + uri.getHost() + uri.getRawPath() + (query == null ? "" : "?" + query));
+    }
+
+    private ApiPayload execute(URI uri) throws IOException, InterruptedException {
+        String host = uri.getHost();
+        String method = methodKey(uri);
+        HttpRequest request = buildRequest(uri);
+        CircuitBreaker breaker = breaker(host);
         int attempts = 0;
         while (true) {
             attempts++;
+            long gateNanos;
+            while ((gateNanos = backoffGate.remainingNanos(host, method, System.nanoTime())) > 0) {
+                TimeUnit.NANOSECONDS.sleep(gateNanos);
+            }
+            if (!breaker.tryAcquire(System.nanoTime())) {
+                throw circuitOpen(uri, breaker);
+            }
             if (rateLimiter != null) {
-                rateLimiter.acquire();
+                rateLimiter.acquire(host, method);
             }
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            int status = response.statusCode();
-            if (status == 200) {
+            long sentNanos = System.nanoTime();
+            HttpResponse<ApiPayload> response;
+            try {
+                response = httpClient.send(request, PAYLOAD_HANDLER);
+            } catch (IOException e) {
+                recordTransportFailure(host, breaker);
+                throw e;
+            }
+            recordResponse(host, method, response, sentNanos, breaker);
+            if (response.statusCode() == 200) {
                 return response.body();
             }
-            if (status == 429) {
-                long retryMillis = parseRetryAfterMillis(response);
-                Thread.sleep(Math.max(retryMillis, 1000L));
-                continue;
+            long retryMillis = retryDelayMillis(response, attempts);
+            if (retryMillis < 0) {
+                throw failure(uri, response);
             }
-            if (status >= 500 && attempts < 3) {
-                Thread.sleep(500L * attempts);
-                continue;
+            if (response.statusCode() == 429) {
+                pauseCallers(host, method, response, retryMillis);
+            } else {
+                Thread.sleep(retryMillis);
             }
-            throw new IOException("Riot API " + request.uri() + " returned " + status + " body=" + truncate(response.body(), 400));
         }
     }
 
-    private long parseRetryAfterMillis(HttpResponse<String> response) {
+    private CompletableFuture<ApiPayload> executeAsync(URI uri, int attempt) {
+        String host = uri.getHost();
+        String method = methodKey(uri);
+        long gateNanos = backoffGate.remainingNanos(host, method, System.nanoTime());
+        if (gateNanos > 0) {
+            return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(gateNanos, TimeUnit.NANOSECONDS))
+                    .thenCompose(ignored -> executeAsync(uri, attempt));
+        }
+        CircuitBreaker breaker = breaker(host);
+        if (!breaker.tryAcquire(System.nanoTime())) {
+            return CompletableFuture.failedFuture(circuitOpen(uri, breaker));
+        }
+        HttpRequest request = buildRequest(uri);
+        CompletableFuture<Void> permit = rateLimiter != null
+                ? rateLimiter.acquireAsync(host, method)
+                : CompletableFuture.completedFuture(null);
+        long[] sentNanos = new long[1];
+        return permit
+                .thenCompose(ignored -> {
+                    sentNanos[0] = System.nanoTime();
+                    return httpClient.sendAsync(request, PAYLOAD_HANDLER).whenComplete((response, error) -> {
+                        if (error != null) {
+                            recordTransportFailure(host, breaker);
+                        }
+                    });
+                })
+                .thenCompose(response -> {
+                    recordResponse(host, method, response, sentNanos[0], breaker);
+                    if (response.statusCode() == 200) {
+                        return CompletableFuture.completedFuture(response.body());
+                    }
+                    long retryMillis = retryDelayMillis(response, attempt);
+                    if (retryMillis < 0) {
+                        return CompletableFuture.failedFuture(failure(uri, response));
+                    }
+                    if (response.statusCode() == 429) {
+                        pauseCallers(host, method, response, retryMillis);
+                        return executeAsync(uri, attempt + 1);
+                    }
+                    return CompletableFuture.runAsync(() -> { },
+                                    CompletableFuture.delayedExecutor(retryMillis, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> executeAsync(uri, attempt + 1));
+                });
+    }
+
+    private void pauseCallers(String host, String method, HttpResponse<?> response, long retryMillis) {
+        String scope = response.headers().firstValue(RATE_LIMIT_TYPE_HEADER).orElse("application").toLowerCase();
+        backoffGate.pause(host, "method".equals(scope) ? method : null, TimeUnit.MILLISECONDS.toNanos(retryMillis), System.nanoTime());
+        BACKOFF_PAUSES.inc(host, scope);
+        RETRY_DELAY.observe(retryMillis / 1000d, "429");
+    }
+
+    private CircuitBreaker breaker(String host) {
+        CircuitBreaker breaker = breakers.get(host);
+        return breaker != null ? breaker : breakers.computeIfAbsent(host, key -> new CircuitBreaker(
+                BREAKER_WINDOW, BREAKER_MIN_SAMPLES, BREAKER_FAILURE_RATIO, TimeUnit.MILLISECONDS.toNanos(BREAKER_OPEN_MILLIS)));
+    }
+
+    private void recordTransportFailure(String host, CircuitBreaker breaker) {
+        RESPONSES.inc(host, "error");
+        breaker.onFailure(System.nanoTime());
+        CIRCUIT_STATE.set(breaker.state().ordinal(), host);
+    }
+
+    private void recordResponse(String host, String method, HttpResponse<ApiPayload> response, long sentNanos, CircuitBreaker breaker) {
+        LATENCY.observeNanos(System.nanoTime() - sentNanos, method);
+        RESPONSES.inc(host, Integer.toString(response.statusCode()));
+        ApiPayload payload = response.body();
+        RECEIVED_BYTES.add(payload.raw().length, host, payload.isGzip() ? "gzip" : "identity");
+        if (response.statusCode() >= 500) {
+            breaker.onFailure(System.nanoTime());
+        } else {
+            breaker.onSuccess();
+        }
+        CIRCUIT_STATE.set(breaker.state().ordinal(), host);
+        if (rateLimiter != null) {
+            rateLimiter.update(host, method, response.headers());
+        }
+    }
+
+    private IOException circuitOpen(URI uri, CircuitBreaker breaker) {
+        String host = uri.getHost();
+        CIRCUIT_REJECTIONS.inc(host);
+        long retrySeconds = TimeUnit.NANOSECONDS.toSeconds(breaker.remainingOpenNanos(System.nanoTime()));
+        return new IOException("Circuit open for " + host + " after repeated server errors; skipping " + uri + " (retry in " + retrySeconds + "s)");
+    }
+
+    static String methodKey(URI uri) {
+        String path = uri.getPath();
+        if (path == null || path.isBlank()) {
+            return "/";
+        }
+        String[] segments = path.split("/");
+        StringBuilder key = new StringBuilder();
+        int kept = 0;
+        for (String segment : segments) {
+            if (segment.isEmpty()) continue;
+            if (kept < METHOD_PREFIX_SEGMENTS || METHOD_SEGMENT.matcher(segment).matches()) {
+                key.append('/').append(segment);
+            } else {
+                key.append("/{}");
+            }
+            kept++;
+        }
+        return key.toString();
+    }
+
+    private long retryDelayMillis(HttpResponse<?> response, int attempts) {
+        int status = response.statusCode();
+        if (status == 429) {
+            return Math.max(parseRetryAfterMillis(response), 1000L);
+        }
+        if (status >= 500 && attempts < MAX_SERVER_ERROR_ATTEMPTS) {
+            long ceiling = Math.min(MAX_SERVER_ERROR_DELAY_MILLIS, BASE_SERVER_ERROR_DELAY_MILLIS << (attempts - 1));
+            long delay = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+            RETRY_DELAY.observe(delay / 1000d, "5xx");
+            return delay;
+        }
+        return -1L;
+    }
+
+    private IOException failure(URI uri, HttpResponse<ApiPayload> response) {
+        return new IOException("Riot API " + uri + " returned " + response.statusCode() + " body=" + truncate(bodyText(response.body()), 400));
+    }
+
+    private String bodyText(ApiPayload body) {
+        try {
+            return body.text();
+        } catch (IOException e) {
+            return "<undecodable " + body.raw().length + " bytes>";
+        }
+    }
+
+    private static boolean isGzip(HttpResponse.ResponseInfo info) {
+        return info.headers().firstValue("Content-Encoding").map(value -> value.trim().equalsIgnoreCase("gzip")).orElse(false);
+    }
+
+    private long parseRetryAfterMillis(HttpResponse<?> response) {
         Optional<String> retry = response.headers().firstValue("Retry-After");
         if (retry.isEmpty()) {
             return 0L;
@@ -1,16 +1,32 @@
 package org.example.util;
 
+import org.example.metrics.Histogram;
+import org.example.metrics.Metrics;
+
+import java.net.http.HttpHeaders;
 import java.time.Duration;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class RiotRateLimiter {
+    private static final String APP_LIMIT_HEADER = "X-App-Rate-Limit";
+    private static final String APP_COUNT_HEADER = "X-App-Rate-Limit-Count";
+    private static final String METHOD_LIMIT_HEADER = "X-Method-Rate-Limit";
+    private static final String METHOD_COUNT_HEADER = "X-Method-Rate-Limit-Count";
+    private static final Histogram WAIT = Metrics.latency("riot_rate_limiter_wait_seconds", "Time callers wait for a rate-limit permit, by host.", "host");
+
     private final int shortLimit;
     private final long shortWindowNanos;
     private final int longLimit;
     private final long longWindowNanos;
-    private final Deque<Long> shortWindow = new ArrayDeque<>();
-    private final Deque<Long> longWindow = new ArrayDeque<>();
+    private final Map<String, Region> regions = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
 
     public RiotRateLimiter(int shortLimit, Duration shortWindow, int longLimit, Duration longWindow) {
         this.shortLimit = shortLimit;
@@ -19,43 +35,157 @@ public class RiotRateLimiter {
         this.longWindowNanos = longWindow == null ? 0 : longWindow.toNanos();
     }
 
-    public void acquire() throws InterruptedException {
-        while (true) {
-            long sleepMillis;
-            synchronized (this) {
-                long now = System.nanoTime();
-                prune(shortWindow, now, shortWindowNanos);
-                prune(longWindow, now, longWindowNanos);
-
-                boolean shortOk = shortLimit <= 0 || shortWindow.size() < shortLimit;
-                boolean longOk = longLimit <= 0 || longWindow.size() < longLimit;
-                if (shortOk && longOk) {
-                    shortWindow.addLast(now);
-                    longWindow.addLast(now);
-                    return;
-                }
+    public void acquire(String region, String method) throws InterruptedException {
+        long deadline = reserve(region, method);
+        WAIT.observeNanos(Math.max(0, deadline - System.nanoTime()), region);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
 
-                long waitNanos = 0;
-                if (!shortOk && !shortWindow.isEmpty()) {
-                    waitNanos = Math.max(waitNanos, shortWindowNanos - (now - shortWindow.peekFirst()));
-                }
-                if (!longOk && !longWindow.isEmpty()) {
-                    waitNanos = Math.max(waitNanos, longWindowNanos - (now - longWindow.peekFirst()));
+    public CompletableFuture<Void> acquireAsync(String region, String method) {
+        long remaining = reserve(region, method) - System.nanoTime();
+        WAIT.observeNanos(Math.max(0, remaining), region);
+        if (remaining <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(() -> permit.complete(null));
+        return permit;
+    }
+
+    private long reserve(String region, String method) {
+        Region buckets = region(region);
+        Bucket methodBucket = buckets.method(method);
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long at = Math.max(buckets.app.earliest(now), methodBucket.earliest(now));
+            buckets.app.record(at);
+            methodBucket.record(at);
+            return at;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void update(String region, String method, HttpHeaders headers) {
+        Region buckets = region(region);
+        Bucket methodBucket = buckets.method(method);
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            headers.firstValue(APP_LIMIT_HEADER).ifPresent(buckets.app::applyLimits);
+            headers.firstValue(APP_COUNT_HEADER).ifPresent(value -> buckets.app.syncCounts(value, now));
+            headers.firstValue(METHOD_LIMIT_HEADER).ifPresent(methodBucket::applyLimits);
+            headers.firstValue(METHOD_COUNT_HEADER).ifPresent(value -> methodBucket.syncCounts(value, now));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Region region(String region) {
+        Region buckets = regions.get(region);
+        return buckets != null ? buckets : regions.computeIfAbsent(region, key -> new Region(appBucket()));
+    }
+
+    private Bucket appBucket() {
+        List<RateLimitWindow> windows = new ArrayList<>();
+        if (shortLimit > 0 && shortWindowNanos > 0) {
+            windows.add(new RateLimitWindow(shortLimit, shortWindowNanos));
+        }
+        if (longLimit > 0 && longWindowNanos > 0) {
+            windows.add(new RateLimitWindow(longLimit, longWindowNanos));
+        }
+        return new Bucket(windows.toArray(new RateLimitWindow[0]));
+    }
+
+    private static List<long[]> parsePairs(String header) {
+        List<long[]> pairs = new ArrayList<>();
+        for (String part : header.split(",")) {
+            String[] values = part.trim().split(":");
+            if (values.length != 2) continue;
+            try {
+                long first = Long.parseLong(values[0].trim());
+                long seconds = Long.parseLong(values[1].trim());
+                if (seconds > 0) {
+                    pairs.add(new long[]{first, TimeUnit.SECONDS.toNanos(seconds)});
                 }
-                sleepMillis = Math.max(1L, (waitNanos + 999_999L) / 1_000_000L);
+            } catch (NumberFormatException ignored) {
             }
-            Thread.sleep(sleepMillis);
         }
+        return pairs;
     }
 
-    private void prune(Deque<Long> queue, long now, long windowNanos) {
-        if (windowNanos <= 0) {
-            queue.clear();
-            return;
+    private record Region(Bucket app, Map<String, Bucket> methods) {
+        Region(Bucket app) {
+            this(app, new ConcurrentHashMap<>());
         }
-        long threshold = now - windowNanos;
-        while (!queue.isEmpty() && queue.peekFirst() <= threshold) {
-            queue.removeFirst();
+
+        Bucket method(String method) {
+            Bucket bucket = methods.get(method);
+            return bucket != null ? bucket : methods.computeIfAbsent(method, key -> new Bucket(new RateLimitWindow[0]));
+        }
+    }
+
+    private static final class Bucket {
+        private RateLimitWindow[] windows;
+
+        Bucket(RateLimitWindow[] windows) {
+            this.windows = windows;
+        }
+
+        long earliest(long now) {
+            long at = now;
+            for (RateLimitWindow window : windows) {
+                at = Math.max(at, window.earliest(now));
+            }
+            return at;
+        }
+
+        void record(long at) {
+            for (RateLimitWindow window : windows) {
+                window.record(at);
+            }
+        }
+
+        void applyLimits(String header) {
+            List<long[]> pairs = parsePairs(header);
+            if (pairs.isEmpty()) return;
+            RateLimitWindow[] updated = new RateLimitWindow[pairs.size()];
+            for (int i = 0; i < updated.length; i++) {
+                long[] pair = pairs.get(i);
+                RateLimitWindow window = find(pair[1]);
+                if (window == null) {
+                    window = new RateLimitWindow((int) pair[0], pair[1]);
+                } else {
+                    window.setLimit((int) pair[0]);
+                }
+                updated[i] = window;
+            }
+            windows = updated;
+        }
+
+        void syncCounts(String header, long now) {
+            for (long[] pair : parsePairs(header)) {
+                RateLimitWindow window = find(pair[1]);
+                if (window != null) {
+                    window.syncCount((int) pair[0], now);
+                }
+            }
+        }
+
+        private RateLimitWindow find(long windowNanos) {
+            for (RateLimitWindow window : windows) {
+                if (window.windowNanos() == windowNanos) {
+                    return window;
+                }
+            }
+            return null;
         }
     }
 }